@@ -0,0 +1,148 @@
+package sheng.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sheng.exception.ShengException;
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+import sheng.task.Todo;
+
+/**
+ * Compares {@link TaskLineScanner} against splitting each line with a regular expression and
+ * parsing its dates with {@link DateTimeFormatter}, over a task file of one million lines.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskLineScannerBenchmark {
+    private static final int LINE_COUNT = 1_000_000;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private Path file;
+    private List<String> lines;
+
+    /**
+     * Writes the task file and reads its lines back into memory.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("sheng-bench", ".txt");
+        ArrayList<String> generated = new ArrayList<>(LINE_COUNT);
+        for (int i = 0; i < LINE_COUNT; i++) {
+            switch (i % 3) {
+            case 0:
+                generated.add("T | " + (i % 2) + " | read book " + i);
+                break;
+            case 1:
+                generated.add("D | 0 | return book " + i + " | 2024-0" + (1 + i % 9) + "-1" + (i % 10) + " 1800");
+                break;
+            default:
+                generated.add("E | 1 | project meeting " + i + " | 2024-03-01 0900 | 2024-03-01 1100");
+                break;
+            }
+        }
+        Files.write(file, generated);
+        lines = Files.readAllLines(file);
+    }
+
+    /**
+     * Deletes the task file.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Parses every line by splitting on the separator, the way task lines used to be parsed.
+     *
+     * @param blackhole Consumes the parsed tasks.
+     * @throws ShengException If a line is not a valid task.
+     */
+    @Benchmark
+    public void parseWithSplit(Blackhole blackhole) throws ShengException {
+        for (String line : lines) {
+            blackhole.consume(parseWithSplit(line));
+        }
+    }
+
+    /**
+     * Parses every line with the scanner.
+     *
+     * @param blackhole Consumes the parsed tasks.
+     * @throws ShengException If a line is not a valid task.
+     */
+    @Benchmark
+    public void parseWithScanner(Blackhole blackhole) throws ShengException {
+        for (String line : lines) {
+            blackhole.consume(TaskLineScanner.parse(line));
+        }
+    }
+
+    /**
+     * Loads the whole file the way {@link Storage} does, including reading and decoding it.
+     *
+     * @param blackhole Consumes the loaded tasks.
+     * @throws IOException If the file cannot be read.
+     */
+    @Benchmark
+    public void loadTextFile(Blackhole blackhole) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>(LINE_COUNT);
+        TextTaskFile.read(file, tasks);
+        blackhole.consume(tasks);
+    }
+
+    private static Task parseWithSplit(String line) throws ShengException {
+        String[] parts = line.split(" \\| ");
+        if (parts.length < 3) {
+            throw new ShengException("Invalid task format!");
+        }
+        Task task;
+        try {
+            switch (parts[0]) {
+            case "T":
+                task = new Todo(parts[2]);
+                break;
+            case "D":
+                task = new Deadline(parts[2], LocalDateTime.parse(parts[3], FORMATTER));
+                break;
+            case "E":
+                task = new Event(parts[2], LocalDateTime.parse(parts[3], FORMATTER),
+                        LocalDateTime.parse(parts[4], FORMATTER));
+                break;
+            default:
+                throw new ShengException("Unknown task type: " + parts[0]);
+            }
+        } catch (DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ShengException("Invalid task format!");
+        }
+        if (parts[1].equals("1")) {
+            task.markAsDone();
+        }
+        return task;
+    }
+}
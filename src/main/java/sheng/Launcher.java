@@ -7,6 +7,14 @@ import javafx.application.Application;
  */
 public class Launcher {
     public static void main(String[] args) {
+        if (!Sheng.checkOptions(args)) {
+            return;
+        }
+        if (Sheng.isBatch(args)) {
+            // A batch run needs no window, so JavaFX is never started
+            Sheng.main(args);
+            return;
+        }
         Application.launch(Main.class, args);
     }
 }
@@ -13,10 +13,12 @@ import javafx.stage.Stage;
  */
 public class Main extends Application {
 
-    private Sheng sheng = new Sheng();
+    private Sheng sheng;
 
     @Override
     public void start(Stage stage) {
+        String[] args = getParameters().getRaw().toArray(new String[0]);
+        sheng = new Sheng(Sheng.getDataPath(args), Sheng.getTaskLayout(args));
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/view/MainWindow.fxml"));
             AnchorPane ap = fxmlLoader.load();
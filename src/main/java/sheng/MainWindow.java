@@ -36,6 +36,9 @@ public class MainWindow extends AnchorPane {
     public void setSheng(Sheng s) {
         sheng = s;
         showWelcomeMessage();
+        if (sheng.getLoadError() != null) {
+            dialogContainer.getChildren().add(DialogBox.getErrorDialog(sheng.getLoadError(), shengImage));
+        }
     }
     
     /**
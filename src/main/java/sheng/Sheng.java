@@ -1,15 +1,32 @@
 package sheng;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.function.Consumer;
 
 import sheng.exception.ShengException;
 import sheng.parser.Command;
+import sheng.parser.ParsedCommand;
 import sheng.parser.Parser;
 import sheng.storage.Storage;
+import sheng.storage.TaskImporter;
 import sheng.task.Deadline;
 import sheng.task.Event;
 import sheng.task.Task;
+import sheng.task.TaskLayout;
 import sheng.task.TaskList;
 import sheng.task.Todo;
 import sheng.ui.Ui;
@@ -18,9 +35,23 @@ import sheng.ui.Ui;
  * Main class for the Sheng chatbot application.
  */
 public class Sheng {
+    private static final long WRITE_BEHIND_LATENCY_MILLIS = 50;
+    private static final String BATCH_FLAG = "--batch";
+    private static final String DATA_FLAG = "--data";
+    private static final String STORE_FLAG = "--store";
+    private static final String DEFAULT_DATA_PATH = "data/sheng.txt";
+    private static final String USAGE = "Usage: [" + DATA_FLAG + " <data file>] [" + BATCH_FLAG + " <script file>] ["
+            + STORE_FLAG + " objects|columns|offheap]";
+    private static final int BATCH_CHECKPOINT_INTERVAL = 100_000;
+    private static final int BATCH_OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_SKIPPED_ROWS_IN_RESPONSE = 20;
     private Storage storage;
     private TaskList tasks;
     private Ui ui;
+    // Where long-running commands report progress as they go, or null in the chat window, which only
+    // shows their final response
+    private Consumer<String> reporter;
+    private String loadError;
 
     /**
      * Constructs a Sheng instance with the specified file path.
@@ -28,14 +59,34 @@ public class Sheng {
      * @param filePath The path to the data file.
      */
     public Sheng(String filePath) {
+        this(filePath, TaskLayout.OBJECTS);
+    }
+
+    /**
+     * Constructs a Sheng instance with the specified file path, keeping the tasks in the given layout.
+     * Task objects are loaded lazily; the other layouts decode every task straight into their columns up front.
+     *
+     * @param filePath The path to the data file.
+     * @param layout How to keep the tasks in memory.
+     */
+    public Sheng(String filePath, TaskLayout layout) {
         assert filePath != null : "File path cannot be null";
+        assert layout != null : "Layout cannot be null";
         ui = new Ui();
-        storage = new Storage(filePath);
+        storage = new Storage(filePath, true);
         try {
-            tasks = new TaskList(storage.load());
+            tasks = new TaskList(storage.loadLazily(), layout);
+            storage.enableWriteBehind(WRITE_BEHIND_LATENCY_MILLIS);
+        } catch (UncheckedIOException e) {
+            // Storage leaves an unreadable data file alone, so the empty list is never saved over it
+            loadError = e.getMessage() + "\nStarting with an empty task list. Changes will not be saved"
+                    + " until the data file can be read again.";
+            ui.showError(loadError);
+            tasks = new TaskList(new ArrayList<>(), layout);
         } catch (Exception e) {
-            ui.showError("Error loading tasks. Starting with empty task list.");
-            tasks = new TaskList();
+            loadError = "Error loading tasks. Starting with empty task list.";
+            ui.showError(loadError);
+            tasks = new TaskList(new ArrayList<>(), layout);
         }
         assert ui != null : "UI should be initialized";
         assert storage != null : "Storage should be initialized";
@@ -46,7 +97,7 @@ public class Sheng {
      * Constructs a Sheng instance with default file path.
      */
     public Sheng() {
-        this("data/sheng.txt");
+        this(DEFAULT_DATA_PATH);
     }
 
     /**
@@ -54,13 +105,13 @@ public class Sheng {
      */
     public void run() {
         ui.showWelcome();
+        reporter = ui::showProgress;
         
         boolean isExit = false;
         while (!isExit) {
             try {
                 String input = ui.readCommand();
-                Command command = Parser.getCommand(input);
-                isExit = processCommand(command, input);
+                isExit = processCommand(Parser.parse(input));
             } catch (ShengException e) {
                 ui.showError(e.getMessage());
             }
@@ -71,26 +122,212 @@ public class Sheng {
     /**
      * Processes a command in CLI mode and returns whether to exit.
      *
-     * @param command The command to process.
-     * @param input The full user input string.
+     * @param parsed The command to process, with its arguments.
      * @return True if the application should exit, false otherwise.
      * @throws ShengException If command execution fails.
      */
-    private boolean processCommand(Command command, String input) throws ShengException {
-        if (command == Command.BYE) {
+    private boolean processCommand(ParsedCommand parsed) throws ShengException {
+        if (parsed.command() == Command.BYE) {
+            storage.close();
             ui.showGoodbye();
             return true;
         }
         
-        String response = executeCommand(command, input);
+        String response = executeCommand(parsed);
         ui.showMessage(response);
         return false;
     }
 
 
+    /**
+     * Runs every command in a script, one per line, without the banners of the interactive mode.
+     * Commands that add, mark or delete tasks run silently; only errors and the results of the
+     * other commands are written, followed by a summary, all through the given writer.
+     * Changes are saved once at the end, and every {@value #BATCH_CHECKPOINT_INTERVAL} changes
+     * along the way, rather than after every command. A bye line ends the script early.
+     *
+     * @param scriptPath The path to the script.
+     * @param output Where to write the results.
+     * @return The number of commands that failed.
+     * @throws IOException If the script cannot be read or the results cannot be written.
+     */
+    public int runBatch(Path scriptPath, Writer output) throws IOException {
+        assert scriptPath != null && output != null : "Script and output cannot be null";
+        storage.deferSaves();
+        reporter = message -> writeLine(output, message);
+        int commandCount = 0;
+        int failedCount = 0;
+        int changeCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(scriptPath, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                commandCount++;
+                try {
+                    ParsedCommand parsed = Parser.parse(line);
+                    if (parsed.command() == Command.BYE) {
+                        break;
+                    }
+                    String response = executeCommand(parsed);
+                    if (!isChange(parsed.command())) {
+                        output.write(response);
+                        output.write(System.lineSeparator());
+                    } else if (++changeCount % BATCH_CHECKPOINT_INTERVAL == 0) {
+                        storage.checkpoint(tasks);
+                    }
+                } catch (ShengException e) {
+                    failedCount++;
+                    output.write(ui.formatBatchError(lineNumber, e.getMessage()));
+                    output.write(System.lineSeparator());
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            storage.checkpoint(tasks);
+            storage.close();
+        }
+        output.write(ui.formatBatchSummary(commandCount, failedCount));
+        output.write(System.lineSeparator());
+        output.flush();
+        return failedCount;
+    }
+
+    private static void writeLine(Writer output, String line) {
+        try {
+            output.write(line);
+            output.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns whether the command only changes the task list, so that a batch need not echo it.
+     */
+    private static boolean isChange(Command command) {
+        switch (command) {
+        case TODO:
+        case DEADLINE:
+        case EVENT:
+        case MARK:
+        case UNMARK:
+        case DELETE:
+            return true;
+        default:
+            return false;
+        }
+    }
 
+    /**
+     * Starts the chatbot in the console, or runs a script given as {@code --batch <file>}.
+     * The tasks are kept in the data file given as {@code --data <file>}, or in the default one,
+     * and in memory in the layout given as {@code --store <layout>}.
+     *
+     * @param args The command-line arguments.
+     */
     public static void main(String[] args) {
-        new Sheng().run();
+        if (!checkOptions(args)) {
+            return;
+        }
+        String dataPath = getDataPath(args);
+        TaskLayout layout = getTaskLayout(args);
+        if (!isBatch(args)) {
+            new Sheng(dataPath, layout).run();
+            return;
+        }
+        Writer output = new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BATCH_OUTPUT_BUFFER_SIZE);
+        try {
+            new Sheng(dataPath, layout).runBatch(Paths.get(getOption(args, BATCH_FLAG)), output);
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Error running batch script: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether the arguments ask for a batch run rather than the chat window.
+     *
+     * @param args The command-line arguments.
+     * @return True if a script is given as {@code --batch <file>}.
+     */
+    public static boolean isBatch(String[] args) {
+        return getOption(args, BATCH_FLAG) != null;
+    }
+
+    /**
+     * Returns the data file given as {@code --data <file>}, or the default data file if there is none.
+     * The file is kept in the format its extension names: {@code .bin} for the binary format,
+     * {@code .slots} for the slotted format, and text for anything else.
+     *
+     * @param args The command-line arguments, which must have passed {@link #checkOptions(String[])}.
+     * @return The path of the data file.
+     */
+    public static String getDataPath(String[] args) {
+        String dataPath = getOption(args, DATA_FLAG);
+        return dataPath == null ? DEFAULT_DATA_PATH : dataPath;
+    }
+
+    /**
+     * Returns the layout given as {@code --store <layout>}, or task objects if there is none.
+     *
+     * @param args The command-line arguments, which must have passed {@link #checkOptions(String[])}.
+     * @return How to keep the tasks in memory.
+     */
+    public static TaskLayout getTaskLayout(String[] args) {
+        String word = getOption(args, STORE_FLAG);
+        return word == null ? TaskLayout.OBJECTS : TaskLayout.fromWord(word);
+    }
+
+    /**
+     * Checks that every argument is a known option followed by a valid value, printing the usage if not.
+     *
+     * @param args The command-line arguments.
+     * @return True if the arguments are valid.
+     */
+    public static boolean checkOptions(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            String error = null;
+            boolean isKnown = args[i].equals(DATA_FLAG) || args[i].equals(BATCH_FLAG) || args[i].equals(STORE_FLAG);
+            if (!isKnown) {
+                error = "Unknown option: " + args[i];
+            } else if (i + 1 == args.length) {
+                error = "Missing value after " + args[i];
+            } else if (args[i].equals(STORE_FLAG) && TaskLayout.fromWord(args[i + 1]) == null) {
+                error = "Unknown layout: " + args[i + 1];
+            }
+            if (error != null) {
+                System.out.println(error);
+                System.out.println(USAGE);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value after an option, or null if the option is not given.
+     */
+    private static String getOption(String[] args, String flag) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals(flag)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns why the tasks could not be loaded when Sheng started, for the chat window to show.
+     *
+     * @return The error message, or null if the tasks were loaded.
+     */
+    public String getLoadError() {
+        return loadError;
     }
 
     /**
@@ -101,8 +338,7 @@ public class Sheng {
      */
     public String getResponse(String input) {
         try {
-            Command command = Parser.getCommand(input);
-            return executeCommand(command, input);
+            return executeCommand(Parser.parse(input));
         } catch (ShengException e) {
             return e.getMessage();
         }
@@ -111,31 +347,43 @@ public class Sheng {
     /**
      * Executes the given command and returns the appropriate response.
      *
-     * @param command The command to execute.
-     * @param input The full user input string.
+     * @param parsed The command to execute, with its arguments.
      * @return The response message.
      * @throws ShengException If command execution fails.
      */
-    private String executeCommand(Command command, String input) throws ShengException {
-        switch (command) {
+    private String executeCommand(ParsedCommand parsed) throws ShengException {
+        switch (parsed.command()) {
         case BYE:
+            storage.close();
             return ui.formatGoodbyeMessage();
         case LIST:
             return ui.formatTaskList(tasks.getAllTasks());
         case MARK:
-            return handleMarkCommand(input);
+            return handleMarkCommand(parsed);
         case UNMARK:
-            return handleUnmarkCommand(input);
+            return handleUnmarkCommand(parsed);
         case DELETE:
-            return handleDeleteCommand(input);
+            return handleDeleteCommand(parsed);
         case TODO:
-            return handleTodoCommand(input);
+            return handleTodoCommand(parsed);
         case DEADLINE:
-            return handleDeadlineCommand(input);
+            return handleDeadlineCommand(parsed);
         case EVENT:
-            return handleEventCommand(input);
+            return handleEventCommand(parsed);
         case FIND:
-            return handleFindCommand(input);
+            return handleFindCommand(parsed);
+        case FUZZY_FIND:
+            return handleFuzzyFindCommand(parsed);
+        case SEARCH:
+            return handleSearchCommand(parsed);
+        case DUE:
+            return handleDueCommand(parsed);
+        case OVERLAPS:
+            return handleOverlapsCommand(parsed);
+        case FREE_SLOT:
+            return handleFreeSlotCommand(parsed);
+        case IMPORT:
+            return handleImportCommand(parsed);
         case ARCHIVE:
             return handleArchiveCommand();
         default:
@@ -144,102 +392,222 @@ public class Sheng {
     }
 
     /**
-     * Handles the mark command by marking a task as done.
+     * Handles the mark command by marking one or more tasks as done.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted response message.
-     * @throws ShengException If the task index is invalid.
+     * @throws ShengException If a task index is invalid.
      */
-    private String handleMarkCommand(String input) throws ShengException {
-        int index = Parser.getTaskIndex(input, tasks.getTaskCount());
-        tasks.markTask(index);
-        storage.save(tasks.getAllTasks());
-        return ui.formatTaskMarked(tasks.getTask(index));
+    private String handleMarkCommand(ParsedCommand parsed) throws ShengException {
+        int[] indices = parsed.getTaskIndices(tasks.getTaskCount());
+        tasks.markTasks(indices);
+        storage.recordMarks(tasks, indices);
+        return indices.length == 1 ? ui.formatTaskMarked(tasks.getTask(indices[0]))
+                : ui.formatTasksMarked(indices.length);
     }
 
     /**
-     * Handles the unmark command by marking a task as not done.
+     * Handles the unmark command by marking one or more tasks as not done.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted response message.
-     * @throws ShengException If the task index is invalid.
+     * @throws ShengException If a task index is invalid.
      */
-    private String handleUnmarkCommand(String input) throws ShengException {
-        int index = Parser.getTaskIndex(input, tasks.getTaskCount());
-        tasks.unmarkTask(index);
-        storage.save(tasks.getAllTasks());
-        return ui.formatTaskUnmarked(tasks.getTask(index));
+    private String handleUnmarkCommand(ParsedCommand parsed) throws ShengException {
+        int[] indices = parsed.getTaskIndices(tasks.getTaskCount());
+        tasks.unmarkTasks(indices);
+        storage.recordUnmarks(tasks, indices);
+        return indices.length == 1 ? ui.formatTaskUnmarked(tasks.getTask(indices[0]))
+                : ui.formatTasksUnmarked(indices.length);
     }
 
     /**
-     * Handles the delete command by removing a task from the list.
+     * Handles the delete command by removing one or more tasks from the list.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted response message.
-     * @throws ShengException If the task index is invalid.
+     * @throws ShengException If a task index is invalid.
      */
-    private String handleDeleteCommand(String input) throws ShengException {
-        int index = Parser.getTaskIndex(input, tasks.getTaskCount());
-        Task deletedTask = tasks.deleteTask(index);
-        storage.save(tasks.getAllTasks());
-        return ui.formatTaskDeleted(deletedTask, tasks.getTaskCount());
+    private String handleDeleteCommand(ParsedCommand parsed) throws ShengException {
+        int[] indices = parsed.getTaskIndices(tasks.getTaskCount());
+        ArrayList<Task> deletedTasks = tasks.deleteTasks(indices);
+        storage.recordDeletes(tasks, indices);
+        return indices.length == 1 ? ui.formatTaskDeleted(deletedTasks.get(0), tasks.getTaskCount())
+                : ui.formatTasksDeleted(indices.length, tasks.getTaskCount());
     }
 
     /**
      * Handles the todo command by creating and adding a new todo task.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted response message.
      * @throws ShengException If the todo description is invalid.
      */
-    private String handleTodoCommand(String input) throws ShengException {
-        String description = Parser.getTodoDescription(input);
-        Task task = new Todo(description);
+    private String handleTodoCommand(ParsedCommand parsed) throws ShengException {
+        Task task = new Todo(parsed.text());
         return addTaskAndGetResponse(task);
     }
 
     /**
      * Handles the deadline command by creating and adding a new deadline task.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted response message.
      * @throws ShengException If the deadline description or time is invalid.
      */
-    private String handleDeadlineCommand(String input) throws ShengException {
-        String description = Parser.getDeadlineDescription(input);
-        String by = Parser.getDeadlineBy(input);
-        Task task = new Deadline(description, by);
+    private String handleDeadlineCommand(ParsedCommand parsed) throws ShengException {
+        Task task = new Deadline(parsed.text(), parsed.by());
         return addTaskAndGetResponse(task);
     }
 
     /**
      * Handles the event command by creating and adding a new event task.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted response message.
      * @throws ShengException If the event description, start time, or end time is invalid.
      */
-    private String handleEventCommand(String input) throws ShengException {
-        String description = Parser.getEventDescription(input);
-        String from = Parser.getEventFrom(input);
-        String to = Parser.getEventTo(input);
-        Task task = new Event(description, from, to);
-        return addTaskAndGetResponse(task);
+    private String handleEventCommand(ParsedCommand parsed) throws ShengException {
+        Event event = new Event(parsed.text(), parsed.from(), parsed.to());
+        ArrayList<Task> conflicts = tasks.findOverlappingEvents(event.getFrom(), event.getTo());
+        String response = addTaskAndGetResponse(event);
+        if (conflicts.isEmpty()) {
+            return response;
+        }
+        return response + "\n" + ui.formatEventConflicts(conflicts);
     }
 
     /**
      * Handles the find command by searching for tasks containing the keyword.
      *
-     * @param input The user input string.
+     * @param parsed The parsed command.
      * @return Formatted list of matching tasks.
      * @throws ShengException If the find keyword is invalid.
      */
-    private String handleFindCommand(String input) throws ShengException {
-        String keyword = Parser.getFindKeyword(input);
-        ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
+    private String handleFindCommand(ParsedCommand parsed) throws ShengException {
+        ArrayList<Task> matchingTasks = tasks.findTasks(parsed.text());
         return ui.formatMatchingTasks(matchingTasks);
     }
 
+    /**
+     * Handles the fuzzy find command by searching for tasks with words close to the keyword.
+     *
+     * @param parsed The parsed command.
+     * @return Formatted list of matching tasks, closest first.
+     * @throws ShengException If the find keyword is invalid.
+     */
+    private String handleFuzzyFindCommand(ParsedCommand parsed) throws ShengException {
+        ArrayList<Task> matchingTasks = tasks.findTasksFuzzy(parsed.text());
+        return ui.formatMatchingTasks(matchingTasks);
+    }
+
+    /**
+     * Handles the search command by listing the tasks most relevant to the keywords.
+     *
+     * @param parsed The parsed command.
+     * @return Formatted list of matching tasks, most relevant first.
+     * @throws ShengException If the keywords or limit are invalid.
+     */
+    private String handleSearchCommand(ParsedCommand parsed) throws ShengException {
+        ArrayList<Task> matchingTasks = tasks.searchTasks(parsed.text(), parsed.count());
+        return ui.formatMatchingTasks(matchingTasks);
+    }
+
+    /**
+     * Handles the due command by listing the deadlines due in the given window.
+     *
+     * @param parsed The parsed command.
+     * @return Formatted list of matching deadlines, earliest first.
+     * @throws ShengException If a time in the window is invalid.
+     */
+    private String handleDueCommand(ParsedCommand parsed) throws ShengException {
+        ArrayList<Task> dueTasks = tasks.findDeadlinesDue(parsed.from(), parsed.to());
+        return ui.formatMatchingTasks(dueTasks);
+    }
+
+    /**
+     * Handles the overlaps command by listing the events that overlap the given window.
+     *
+     * @param parsed The parsed command.
+     * @return Formatted list of overlapping events, by start time.
+     * @throws ShengException If a time in the window is missing or invalid.
+     */
+    private String handleOverlapsCommand(ParsedCommand parsed) throws ShengException {
+        ArrayList<Task> overlappingEvents = tasks.findOverlappingEvents(parsed.from(), parsed.to());
+        return ui.formatMatchingTasks(overlappingEvents);
+    }
+
+    /**
+     * Handles the freeslot command by finding the next window of the given length without events.
+     *
+     * @param parsed The parsed command.
+     * @return Formatted start of the free slot.
+     * @throws ShengException If the hours or start time are invalid.
+     */
+    private String handleFreeSlotCommand(ParsedCommand parsed) throws ShengException {
+        int hours = parsed.count();
+        LocalDateTime after = parsed.from();
+        if (after == null) {
+            after = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        }
+        LocalDateTime start = tasks.findFreeSlot(after, Duration.ofHours(hours));
+        return ui.formatFreeSlot(start, hours);
+    }
+
+    /**
+     * Handles the import command by adding every valid task in a CSV or task file in one batch,
+     * which is then saved with a single write. Skipped rows and progress are reported as the file
+     * is read; in the chat window, which has nowhere to report them to, the first skipped rows are
+     * listed in the response instead.
+     *
+     * @param parsed The parsed command.
+     * @return Formatted summary of the import.
+     * @throws ShengException If the file cannot be read.
+     */
+    private String handleImportCommand(ParsedCommand parsed) throws ShengException {
+        ImportListener listener = new ImportListener();
+        ArrayList<Task> importedTasks;
+        try {
+            importedTasks = TaskImporter.read(Paths.get(parsed.text()), listener);
+        } catch (IOException | InvalidPathException e) {
+            throw new ShengException("Failed to import tasks from file: " + e.getMessage());
+        }
+        tasks.addTasks(importedTasks);
+        storage.recordImport(tasks);
+        String summary = ui.formatImportComplete(importedTasks.size(), listener.rejectedCount, tasks.getTaskCount());
+        if (listener.unreported.isEmpty()) {
+            return summary;
+        }
+        return ui.formatSkippedRows(listener.unreported, listener.rejectedCount) + "\n" + summary;
+    }
+
+    /**
+     * Passes what happens during an import on to the reporter, counting the rows skipped.
+     * Without a reporter, the first skipped rows are kept for the response instead.
+     */
+    private class ImportListener implements TaskImporter.Listener {
+        private long rejectedCount;
+        private final ArrayList<String> unreported = new ArrayList<>();
+
+        @Override
+        public void onRejected(long lineNumber, String reason) {
+            rejectedCount++;
+            String message = ui.formatImportRejected(lineNumber, reason);
+            if (reporter != null) {
+                reporter.accept(message);
+            } else if (unreported.size() < MAX_SKIPPED_ROWS_IN_RESPONSE) {
+                unreported.add(message);
+            }
+        }
+
+        @Override
+        public void onProgress(long rowCount) {
+            if (reporter != null) {
+                reporter.accept(ui.formatImportProgress(rowCount));
+            }
+        }
+    }
+
     /**
      * Adds a task to the task list, saves to storage, and returns a formatted response.
      *
@@ -248,7 +616,7 @@ public class Sheng {
      */
     private String addTaskAndGetResponse(Task task) {
         tasks.addTask(task);
-        storage.save(tasks.getAllTasks());
+        storage.recordAdd(tasks, task);
         return ui.formatTaskAdded(task, tasks.getTaskCount());
     }
 
@@ -268,7 +636,7 @@ public class Sheng {
         try {
             String archiveFileName = storage.archiveAll(tasks.getAllTasks());
             tasks.clearAllTasks();
-            storage.save(tasks.getAllTasks());
+            storage.recordClear(tasks);
             return ui.formatArchiveComplete(archiveFileName, archivedCount);
         } catch (IOException e) {
             throw new ShengException("Failed to archive tasks to file: " + e.getMessage());
@@ -2,18 +2,52 @@ package sheng.parser;
 
 /**
  * Represents all possible commands that the chatbot can execute.
+ * Each command knows the word that names it and any shorter aliases, so a new command only
+ * needs its words here for the {@link Parser} to recognise it.
  * AI-assisted: GitHub Copilot helped generate the initial enum structure
  * and suggested adding ARCHIVE as a new command type to match other verbs.
  */
 public enum Command {
-    BYE,
-    LIST,
-    MARK,
-    UNMARK,
-    DELETE,
-    TODO,
-    DEADLINE,
-    EVENT,
-    FIND,
-    ARCHIVE  // AI-assisted: Copilot suggested this addition for the archive feature
+    BYE("bye", "exit"),
+    LIST("list", "ls"),
+    MARK("mark"),
+    UNMARK("unmark"),
+    DELETE("delete", "rm"),
+    TODO("todo", "t"),
+    DEADLINE("deadline", "dl"),
+    EVENT("event", "ev"),
+    FIND("find"),
+    FUZZY_FIND("find~"),
+    SEARCH("search"),
+    DUE("due"),
+    OVERLAPS("overlaps"),
+    FREE_SLOT("freeslot"),
+    ARCHIVE("archive"),  // AI-assisted: Copilot suggested this addition for the archive feature
+    IMPORT("import");
+
+    private final String word;
+    private final String[] aliases;
+
+    Command(String word, String... aliases) {
+        this.word = word;
+        this.aliases = aliases;
+    }
+
+    /**
+     * Returns the word that names the command.
+     *
+     * @return The command word.
+     */
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the other words the command can be typed as.
+     *
+     * @return A copy of the aliases of the command.
+     */
+    public String[] getAliases() {
+        return aliases.clone();
+    }
 }
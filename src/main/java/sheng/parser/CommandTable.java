@@ -0,0 +1,98 @@
+package sheng.parser;
+
+/**
+ * Looks up commands by the word typed for them, in constant time and without copying the word
+ * out of the line.
+ * Every word and alias of every {@link Command} is hashed into a table that is grown until no two
+ * words share a slot, so a lookup hashes the typed word, checks the one slot it lands in, and is done.
+ */
+final class CommandTable {
+    private static final int MAX_SIZE = 1 << 16;
+
+    private final String[] words;
+    private final Command[] commands;
+    private final int mask;
+
+    /**
+     * Constructs a table of the given commands, under their words and aliases.
+     *
+     * @param commands The commands to look up.
+     */
+    CommandTable(Command... commands) {
+        int wordCount = 0;
+        for (Command command : commands) {
+            wordCount += 1 + command.getAliases().length;
+        }
+        int size = Integer.highestOneBit(Math.max(1, wordCount) * 2 - 1) << 1;
+        while (true) {
+            String[] tableWords = new String[size];
+            Command[] tableCommands = new Command[size];
+            if (fill(commands, tableWords, tableCommands, size - 1)) {
+                this.words = tableWords;
+                this.commands = tableCommands;
+                this.mask = size - 1;
+                return;
+            }
+            if (size >= MAX_SIZE) {
+                // Only words with equal hashes can collide at every size, such as a word given twice
+                throw new IllegalStateException("Command words could not be spread over a table");
+            }
+            size <<= 1;
+        }
+    }
+
+    /**
+     * Returns the command typed as the word between the given indices.
+     *
+     * @param input The line holding the word.
+     * @param start The index of the first character of the word.
+     * @param end The index after the last character of the word.
+     * @return The command, or null if no command goes by the word.
+     */
+    Command find(String input, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        int slot = spread(hash) & mask;
+        String word = words[slot];
+        if (word != null && word.length() == end - start && input.startsWith(word, start)) {
+            return commands[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Places every word in its slot, failing if two words land in the same one.
+     */
+    private static boolean fill(Command[] commands, String[] words, Command[] tableCommands, int mask) {
+        for (Command command : commands) {
+            if (!place(command.getWord(), command, words, tableCommands, mask)) {
+                return false;
+            }
+            for (String alias : command.getAliases()) {
+                if (!place(alias, command, words, tableCommands, mask)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean place(String word, Command command, String[] words, Command[] commands, int mask) {
+        int slot = spread(word.hashCode()) & mask;
+        if (words[slot] != null) {
+            return false;
+        }
+        words[slot] = word;
+        commands[slot] = command;
+        return true;
+    }
+
+    /**
+     * Mixes the high bits of the hash into the low ones, which are all a small table looks at.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,50 @@
+package sheng.parser;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+
+import sheng.exception.ShengException;
+
+/**
+ * A command read from one line of user input by {@link Parser#parse(String)}, with its arguments
+ * already sliced out of the line and checked. Which arguments are set depends on the command;
+ * the others are null, or 0 for numbers.
+ *
+ * @param command The command to run.
+ * @param text The description of a new task, the keyword of a find, the words of a search, or the
+ *     path of a file to import.
+ * @param taskRanges The numbers of the tasks to mark, unmark or delete, as the user typed them: the
+ *     first and last number of each range, one pair after another. The list is kept as it is, so it
+ *     must not be changeable.
+ * @param count The largest number of search results, or the number of hours a free slot needs.
+ * @param by When a new deadline is due.
+ * @param from When a new event starts, or the start of a window: the time deadlines must be due
+ *     after, the start of an overlaps window, or the earliest start of a free slot.
+ * @param to When a new event ends, or the end of a window: the time deadlines must be due before,
+ *     or the end of an overlaps window.
+ */
+public record ParsedCommand(Command command, String text, List<Integer> taskRanges, int count,
+        LocalDateTime by, LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * Returns the positions of the tasks the command refers to, checked against the current list.
+     * Every range is checked before any position is returned, so a command either applies to all
+     * of its tasks or to none of them.
+     *
+     * @param taskCount The total number of tasks in the list.
+     * @return The zero-based task indices, in increasing order and without repeats.
+     * @throws ShengException If there is no task with one of the numbers.
+     */
+    public int[] getTaskIndices(int taskCount) throws ShengException {
+        BitSet selected = new BitSet();
+        for (int k = 0; k < taskRanges.size(); k += 2) {
+            int first = taskRanges.get(k);
+            int last = taskRanges.get(k + 1);
+            Parser.validateTaskIndex(first - 1, taskCount);
+            Parser.validateTaskIndex(last - 1, taskCount);
+            selected.set(first - 1, last);
+        }
+        return selected.stream().toArray();
+    }
+}
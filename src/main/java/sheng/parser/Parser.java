@@ -1,43 +1,46 @@
 package sheng.parser;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import sheng.exception.ShengException;
+import sheng.task.DateTimeCodec;
 
 /**
- * Parses user input and extracts commands and parameters.
+ * Parses user input into commands and their arguments.
+ * A line is read in one pass: the first word names the command, and the rest is cut into the
+ * main argument and the arguments after each delimiter that command takes, such as {@code /by}.
+ * Numbers and dates are parsed straight from the line, so only the text a command keeps is copied.
  */
 public class Parser {
-    // Command prefixes
-    private static final String COMMAND_BYE = "bye";
-    private static final String COMMAND_LIST = "list";
-    private static final String COMMAND_MARK = "mark";
-    private static final String COMMAND_UNMARK = "unmark";
-    private static final String COMMAND_DELETE = "delete";
-    private static final String COMMAND_TODO = "todo";
-    private static final String COMMAND_DEADLINE = "deadline";
-    private static final String COMMAND_EVENT = "event";
-    private static final String COMMAND_FIND = "find";
-    private static final String COMMAND_ARCHIVE = "archive";
-    
     // Delimiters
     private static final String DELIMITER_BY = "/by";
     private static final String DELIMITER_FROM = "/from";
     private static final String DELIMITER_TO = "/to";
-    
-    // Prefix lengths for parsing
-    private static final int MARK_PREFIX_LENGTH = 5;
-    private static final int UNMARK_PREFIX_LENGTH = 7;
-    private static final int DELETE_PREFIX_LENGTH = 7;
-    private static final int TODO_PREFIX_LENGTH = 5;
-    private static final int DEADLINE_PREFIX_LENGTH = 9;
-    private static final int EVENT_PREFIX_LENGTH = 6;
-    private static final int FIND_PREFIX_LENGTH = 5;
-    private static final int BY_OFFSET = 3;
-    private static final int FROM_OFFSET = 5;
-    private static final int TO_OFFSET = 3;
-    
+    private static final String DELIMITER_LIMIT = "/limit";
+    private static final String DELIMITER_BEFORE = "/before";
+    private static final String DELIMITER_AFTER = "/after";
+
+    private static final CommandTable COMMAND_TABLE = new CommandTable(Command.values());
+
+    // The delimiters each command takes, in the order of its arguments
+    private static final String[] NO_DELIMITERS = {};
+    private static final String[] DEADLINE_DELIMITERS = {DELIMITER_BY};
+    private static final String[] WINDOW_DELIMITERS = {DELIMITER_FROM, DELIMITER_TO};
+    private static final String[] SEARCH_DELIMITERS = {DELIMITER_LIMIT};
+    private static final String[] DUE_DELIMITERS = {DELIMITER_AFTER, DELIMITER_BEFORE};
+    private static final String[] FREE_SLOT_DELIMITERS = {DELIMITER_AFTER};
+
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+
     // Error messages
     private static final String ERROR_EMPTY_INPUT = "Hey there! I'd love to help, but you didn't tell me what to do :)";
-    private static final String ERROR_UNKNOWN_COMMAND = "Hmm, I'm not sure what you mean! Try: todo, deadline, event, list, mark, unmark, delete, find, or archive :)";
+    // Built from the commands themselves, so that a new command shows up in the hint too
+    private static final String ERROR_UNKNOWN_COMMAND = "Hmm, I'm not sure what you mean! Try: " + describeCommands()
+            + " :) Leave a space between the command and the rest.";
     private static final String ERROR_MARK_NO_NUMBER = "Which task would you like to mark as done? Try: mark <number>";
     private static final String ERROR_UNMARK_NO_NUMBER = "Which task would you like to unmark? Try: unmark <number>";
     private static final String ERROR_DELETE_NO_NUMBER = "Which task would you like to delete? Try: delete <number>";
@@ -48,16 +51,25 @@ public class Parser {
     private static final String ERROR_EVENT_NO_FROM = "When does this event start? Please use: event <task> /from <start> /to <end>";
     private static final String ERROR_EVENT_NO_TO = "When does this event end? Please use: event <task> /from <start> /to <end>";
     private static final String ERROR_FIND_EMPTY = "What would you like to find? Try: find <keyword>";
+    private static final String ERROR_FUZZY_FIND_EMPTY = "What would you like to find? Try: find~ <keyword>";
+    private static final String ERROR_IMPORT_EMPTY = "Which file should I import? Try: import <path>";
+    private static final String ERROR_SEARCH_EMPTY = "What would you like to search for? Try: search <keywords> /limit <number>";
+    private static final String ERROR_DUE_NO_WINDOW = "Which deadlines are you looking for? Try: due /before <time> or due /after <time>";
+    private static final String ERROR_DUE_NO_TIME = "Don't forget to add the time after %s!";
+    private static final String ERROR_DUE_EMPTY_WINDOW = "Nothing can be due after %s but before %s! Try an /after time earlier than the /before time.";
+    private static final String ERROR_INVALID_DATE = "Invalid date format! Please use: yyyy-MM-dd HHmm (e.g. 2024-02-14 1400)";
+    private static final String ERROR_OVERLAPS_NO_WINDOW = "Which times should I check? Try: overlaps /from <start> /to <end>";
+    private static final String ERROR_FREE_SLOT_NO_HOURS = "How many hours do you need? Try: freeslot <hours> /after <time>";
+    private static final String ERROR_SEARCH_INVALID_LIMIT = "The limit must be a number above 0, like /limit 5!";
     private static final String ERROR_INVALID_NUMBER = "That doesn't look like a number! Please use a number like 1, 2, 3...";
+    private static final String ERROR_BACKWARDS_RANGE = "A range should go from the smaller number to the larger, like 2-5!";
     private static final String ERROR_OUT_OF_RANGE = "Oops! You only have %d %s in your list!";
-    private static final String ERROR_TODO_NO_DESCRIPTION = "Oops! You forgot to tell me what the todo is!";
     private static final String ERROR_DEADLINE_NO_DESCRIPTION = "What's the deadline for? Don't forget to add a description!";
     private static final String ERROR_DEADLINE_NO_TIME = "When is this deadline? Don't forget to add the time after /by!";
     private static final String ERROR_EVENT_NO_DESCRIPTION = "What event are you adding? Don't forget the description!";
     private static final String ERROR_EVENT_NO_START = "When does your event start? Add the time after /from!";
     private static final String ERROR_EVENT_NO_END = "When does your event end? Add the time after /to!";
-    private static final String ERROR_FIND_NO_KEYWORD = "What would you like to find? Please provide a keyword!";
-    
+
     /**
      * Parses the user input and returns the corresponding command.
      *
@@ -66,212 +78,257 @@ public class Parser {
      * @throws ShengException If the input is invalid.
      */
     public static Command getCommand(String input) throws ShengException {
+        return parse(input).command();
+    }
+
+    /**
+     * Parses the user input into a command with all of its arguments.
+     *
+     * @param input The user input string.
+     * @return The parsed command.
+     * @throws ShengException If the input is not a valid command.
+     */
+    public static ParsedCommand parse(String input) throws ShengException {
         assert input != null : "Input cannot be null";
-        String trimmedInput = input.trim();
-        
-        if (trimmedInput.isEmpty()) {
+        int end = skipWhitespaceBackwards(input, 0, input.length());
+        int start = skipWhitespace(input, 0, end);
+        if (start == end) {
             throw new ShengException(ERROR_EMPTY_INPUT);
         }
-        
-        if (trimmedInput.equals(COMMAND_BYE)) {
-            return Command.BYE;
-        }
-        
-        if (trimmedInput.equals(COMMAND_LIST)) {
-            return Command.LIST;
-        }
-        
-        if (trimmedInput.startsWith(COMMAND_MARK)) {
-            return parseMarkCommand(trimmedInput);
-        }
-        
-        if (trimmedInput.startsWith(COMMAND_UNMARK)) {
-            return parseUnmarkCommand(trimmedInput);
-        }
-        
-        if (trimmedInput.startsWith(COMMAND_DELETE)) {
-            return parseDeleteCommand(trimmedInput);
+        int wordEnd = start;
+        while (wordEnd < end && !isSpace(input.charAt(wordEnd))) {
+            wordEnd++;
         }
-        
-        if (trimmedInput.startsWith(COMMAND_TODO)) {
-            return parseTodoCommand(trimmedInput);
-        }
-        
-        if (trimmedInput.startsWith(COMMAND_DEADLINE)) {
-            return parseDeadlineCommand(trimmedInput);
-        }
-        
-        if (trimmedInput.startsWith(COMMAND_EVENT)) {
-            return parseEventCommand(trimmedInput);
-        }
-        
-        if (trimmedInput.startsWith(COMMAND_FIND)) {
-            return parseFindCommand(trimmedInput);
+
+        Command command = findCommand(input, start, wordEnd);
+        switch (command) {
+        case MARK:
+            return parseTaskNumberCommand(command, input, wordEnd, end, ERROR_MARK_NO_NUMBER);
+        case UNMARK:
+            return parseTaskNumberCommand(command, input, wordEnd, end, ERROR_UNMARK_NO_NUMBER);
+        case DELETE:
+            return parseTaskNumberCommand(command, input, wordEnd, end, ERROR_DELETE_NO_NUMBER);
+        case TODO:
+            return parseTextCommand(command, input, wordEnd, end, ERROR_TODO_EMPTY);
+        case FIND:
+            return parseTextCommand(command, input, wordEnd, end, ERROR_FIND_EMPTY);
+        case FUZZY_FIND:
+            return parseTextCommand(command, input, wordEnd, end, ERROR_FUZZY_FIND_EMPTY);
+        case IMPORT:
+            return parseTextCommand(command, input, wordEnd, end, ERROR_IMPORT_EMPTY);
+        case DEADLINE:
+            return parseDeadlineCommand(new Arguments(input, wordEnd, end, DEADLINE_DELIMITERS));
+        case EVENT:
+            return parseEventCommand(new Arguments(input, wordEnd, end, WINDOW_DELIMITERS));
+        case SEARCH:
+            return parseSearchCommand(new Arguments(input, wordEnd, end, SEARCH_DELIMITERS));
+        case DUE:
+            return parseDueCommand(new Arguments(input, wordEnd, end, DUE_DELIMITERS));
+        case OVERLAPS:
+            return parseOverlapsCommand(new Arguments(input, wordEnd, end, WINDOW_DELIMITERS));
+        case FREE_SLOT:
+            return parseFreeSlotCommand(new Arguments(input, wordEnd, end, FREE_SLOT_DELIMITERS));
+        default:
+            // AI-assisted: Copilot suggested matching bye, list and archive exactly since they don't take parameters
+            return parseBareCommand(command, wordEnd, end);
         }
-        
-        // AI-assisted: Copilot suggested using equals() instead of startsWith()
-        // for archive command since it doesn't take parameters
-        if (trimmedInput.equals(COMMAND_ARCHIVE)) {
-            return Command.ARCHIVE;
+    }
+
+    /**
+     * Lists the word of every command, with its aliases in brackets, for the hint shown for an unknown command.
+     */
+    private static String describeCommands() {
+        Command[] commands = Command.values();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < commands.length; i++) {
+            if (i > 0) {
+                sb.append(i == commands.length - 1 ? ", or " : ", ");
+            }
+            sb.append(commands[i].getWord());
+            String[] aliases = commands[i].getAliases();
+            if (aliases.length > 0) {
+                sb.append(" (").append(String.join(", ", aliases)).append(")");
+            }
         }
-        
-        throw new ShengException(ERROR_UNKNOWN_COMMAND);
+        return sb.toString();
     }
 
     /**
-     * Parses the mark command and validates it has a task number.
+     * Finds the command typed as the word between the given indices, without copying the word out.
      *
-     * @param input The user input string.
-     * @return The MARK command.
-     * @throws ShengException If no task number is provided.
+     * @throws ShengException If no command goes by the word.
      */
-    private static Command parseMarkCommand(String input) throws ShengException {
-        if (input.equals(COMMAND_MARK)) {
-            throw new ShengException(ERROR_MARK_NO_NUMBER);
+    private static Command findCommand(String input, int start, int end) throws ShengException {
+        Command command = COMMAND_TABLE.find(input, start, end);
+        if (command == null) {
+            throw new ShengException(ERROR_UNKNOWN_COMMAND);
         }
-        return Command.MARK;
+        return command;
     }
 
     /**
-     * Parses the unmark command and validates it has a task number.
+     * Parses a command that takes no arguments.
      *
-     * @param input The user input string.
-     * @return The UNMARK command.
-     * @throws ShengException If no task number is provided.
+     * @throws ShengException If anything follows the command word.
      */
-    private static Command parseUnmarkCommand(String input) throws ShengException {
-        if (input.equals(COMMAND_UNMARK)) {
-            throw new ShengException(ERROR_UNMARK_NO_NUMBER);
+    private static ParsedCommand parseBareCommand(Command command, int start, int end) throws ShengException {
+        if (start != end) {
+            throw new ShengException(ERROR_UNKNOWN_COMMAND);
         }
-        return Command.UNMARK;
+        return new ParsedCommand(command, null, null, 0, null, null, null);
     }
 
     /**
-     * Parses the delete command and validates it has a task number.
+     * Parses a mark, unmark or delete command, which takes the numbers of the tasks as single
+     * numbers or ranges separated by commas, such as {@code 1-3, 7}.
      *
-     * @param input The user input string.
-     * @return The DELETE command.
-     * @throws ShengException If no task number is provided.
+     * @throws ShengException If the numbers are missing, not numbers, or a range runs backwards.
      */
-    private static Command parseDeleteCommand(String input) throws ShengException {
-        if (input.equals(COMMAND_DELETE)) {
-            throw new ShengException(ERROR_DELETE_NO_NUMBER);
+    private static ParsedCommand parseTaskNumberCommand(Command command, String input, int start, int end,
+            String emptyError) throws ShengException {
+        Arguments arguments = new Arguments(input, start, end, NO_DELIMITERS);
+        if (arguments.isBlank(Arguments.MAIN)) {
+            throw new ShengException(emptyError);
         }
-        return Command.DELETE;
+        return new ParsedCommand(command, null, arguments.getRanges(Arguments.MAIN), 0, null, null, null);
     }
 
     /**
-     * Parses the todo command and validates it has a description.
+     * Parses a todo, find, fuzzy find or import command, which takes the rest of the line as its text.
      *
-     * @param input The user input string.
-     * @return The TODO command.
-     * @throws ShengException If no description is provided.
+     * @throws ShengException If the text is empty.
      */
-    private static Command parseTodoCommand(String input) throws ShengException {
-        if (input.trim().equals(COMMAND_TODO)) {
-            throw new ShengException(ERROR_TODO_EMPTY);
+    private static ParsedCommand parseTextCommand(Command command, String input, int start, int end,
+            String emptyError) throws ShengException {
+        Arguments arguments = new Arguments(input, start, end, NO_DELIMITERS);
+        if (arguments.isBlank(Arguments.MAIN)) {
+            throw new ShengException(emptyError);
         }
-        return Command.TODO;
+        return new ParsedCommand(command, arguments.getText(Arguments.MAIN), null, 0, null, null, null);
     }
 
     /**
-     * Parses the deadline command and validates it has a description and deadline.
+     * Parses the deadline command, which takes a description and a time after /by.
      *
-     * @param input The user input string.
-     * @return The DEADLINE command.
-     * @throws ShengException If description or deadline marker is missing.
+     * @throws ShengException If the description or time is missing or the time is invalid.
      */
-    private static Command parseDeadlineCommand(String input) throws ShengException {
-        if (input.trim().equals(COMMAND_DEADLINE)) {
+    private static ParsedCommand parseDeadlineCommand(Arguments arguments) throws ShengException {
+        int by = 1;
+        if (arguments.isBlank(Arguments.MAIN) && !arguments.has(by)) {
             throw new ShengException(ERROR_DEADLINE_EMPTY);
         }
-        if (!input.contains(DELIMITER_BY)) {
+        if (!arguments.has(by)) {
             throw new ShengException(ERROR_DEADLINE_NO_BY);
         }
-        return Command.DEADLINE;
+        if (arguments.isBlank(Arguments.MAIN)) {
+            throw new ShengException(ERROR_DEADLINE_NO_DESCRIPTION);
+        }
+        if (arguments.isBlank(by)) {
+            throw new ShengException(ERROR_DEADLINE_NO_TIME);
+        }
+        return new ParsedCommand(Command.DEADLINE, arguments.getText(Arguments.MAIN), null, 0,
+                arguments.getTime(by), null, null);
     }
 
     /**
-     * Parses the event command and validates it has description, start and end times.
+     * Parses the event command, which takes a description and times after /from and /to.
      *
-     * @param input The user input string.
-     * @return The EVENT command.
-     * @throws ShengException If description or time markers are missing.
+     * @throws ShengException If the description or a time is missing or a time is invalid.
      */
-    private static Command parseEventCommand(String input) throws ShengException {
-        if (input.trim().equals(COMMAND_EVENT)) {
+    private static ParsedCommand parseEventCommand(Arguments arguments) throws ShengException {
+        int from = 1;
+        int to = 2;
+        if (arguments.isBlank(Arguments.MAIN) && !arguments.has(from) && !arguments.has(to)) {
             throw new ShengException(ERROR_EVENT_EMPTY);
         }
-        if (!input.contains(DELIMITER_FROM)) {
+        if (!arguments.has(from)) {
             throw new ShengException(ERROR_EVENT_NO_FROM);
         }
-        if (!input.contains(DELIMITER_TO)) {
+        if (!arguments.has(to)) {
             throw new ShengException(ERROR_EVENT_NO_TO);
         }
-        return Command.EVENT;
+        if (arguments.isBlank(Arguments.MAIN)) {
+            throw new ShengException(ERROR_EVENT_NO_DESCRIPTION);
+        }
+        if (arguments.isBlank(from)) {
+            throw new ShengException(ERROR_EVENT_NO_START);
+        }
+        if (arguments.isBlank(to)) {
+            throw new ShengException(ERROR_EVENT_NO_END);
+        }
+        return new ParsedCommand(Command.EVENT, arguments.getText(Arguments.MAIN), null, 0,
+                null, arguments.getTime(from), arguments.getTime(to));
     }
 
     /**
-     * Parses the find command and validates it has a keyword.
+     * Parses the search command, which takes keywords and optionally a limit after /limit.
      *
-     * @param input The user input string.
-     * @return The FIND command.
-     * @throws ShengException If no keyword is provided.
+     * @throws ShengException If there are no keywords or the limit is not a positive number.
      */
-    private static Command parseFindCommand(String input) throws ShengException {
-        if (input.trim().equals(COMMAND_FIND)) {
-            throw new ShengException(ERROR_FIND_EMPTY);
+    private static ParsedCommand parseSearchCommand(Arguments arguments) throws ShengException {
+        int limit = 1;
+        if (arguments.isBlank(Arguments.MAIN)) {
+            throw new ShengException(ERROR_SEARCH_EMPTY);
         }
-        return Command.FIND;
+        int resultLimit = DEFAULT_SEARCH_LIMIT;
+        if (arguments.has(limit)) {
+            resultLimit = arguments.getNumber(limit, ERROR_SEARCH_INVALID_LIMIT);
+            if (resultLimit <= 0) {
+                throw new ShengException(ERROR_SEARCH_INVALID_LIMIT);
+            }
+        }
+        return new ParsedCommand(Command.SEARCH, arguments.getText(Arguments.MAIN), null, resultLimit,
+                null, null, null);
     }
 
     /**
-     * Extracts and validates the task index from user input.
+     * Parses the due command, which takes a time after /after, a time after /before, or both.
      *
-     * @param input The user input string.
-     * @param taskCount The total number of tasks in the list.
-     * @return The zero-based task index.
-     * @throws ShengException If the index is invalid or out of range.
+     * @throws ShengException If neither time is given, a time is missing or invalid, or the /after time
+     *         is not earlier than the /before time.
      */
-    public static int getTaskIndex(String input, int taskCount) throws ShengException {
-        try {
-            String numberStr = extractTaskNumber(input);
-            int index = Integer.parseInt(numberStr) - 1;
-            validateTaskIndex(index, taskCount);
-            return index;
-        } catch (NumberFormatException e) {
-            throw new ShengException(ERROR_INVALID_NUMBER);
+    private static ParsedCommand parseDueCommand(Arguments arguments) throws ShengException {
+        int after = 1;
+        int before = 2;
+        if (!arguments.has(after) && !arguments.has(before)) {
+            throw new ShengException(ERROR_DUE_NO_WINDOW);
+        }
+        LocalDateTime afterTime = arguments.getOptionalTime(after);
+        LocalDateTime beforeTime = arguments.getOptionalTime(before);
+        if (afterTime != null && beforeTime != null && !afterTime.isBefore(beforeTime)) {
+            throw new ShengException(String.format(ERROR_DUE_EMPTY_WINDOW,
+                    arguments.getText(after), arguments.getText(before)));
         }
+        return new ParsedCommand(Command.DUE, null, null, 0, null, afterTime, beforeTime);
     }
 
     /**
-     * Extracts the task number string from a command.
+     * Parses the overlaps command, which takes times after /from and /to.
      *
-     * @param input The user input string.
-     * @return The task number as a string.
-     * @throws ShengException If no valid task number is found.
+     * @throws ShengException If either time is missing or invalid.
      */
-    private static String extractTaskNumber(String input) throws ShengException {
-        if (input.startsWith(COMMAND_MARK + " ")) {
-            String numberStr = input.substring(MARK_PREFIX_LENGTH).trim();
-            if (numberStr.isEmpty()) {
-                throw new ShengException(ERROR_MARK_NO_NUMBER);
-            }
-            return numberStr;
-        } else if (input.startsWith(COMMAND_UNMARK + " ")) {
-            String numberStr = input.substring(UNMARK_PREFIX_LENGTH).trim();
-            if (numberStr.isEmpty()) {
-                throw new ShengException(ERROR_UNMARK_NO_NUMBER);
-            }
-            return numberStr;
-        } else if (input.startsWith(COMMAND_DELETE + " ")) {
-            String numberStr = input.substring(DELETE_PREFIX_LENGTH).trim();
-            if (numberStr.isEmpty()) {
-                throw new ShengException(ERROR_DELETE_NO_NUMBER);
-            }
-            return numberStr;
+    private static ParsedCommand parseOverlapsCommand(Arguments arguments) throws ShengException {
+        int from = 1;
+        int to = 2;
+        if (!arguments.has(from) || !arguments.has(to)) {
+            throw new ShengException(ERROR_OVERLAPS_NO_WINDOW);
         }
-        throw new ShengException(ERROR_INVALID_NUMBER);
+        return new ParsedCommand(Command.OVERLAPS, null, null, 0,
+                null, arguments.getOptionalTime(from), arguments.getOptionalTime(to));
+    }
+
+    /**
+     * Parses the freeslot command, which takes a number of hours and optionally a time after /after.
+     *
+     * @throws ShengException If the hours are not a positive number or the time is invalid.
+     */
+    private static ParsedCommand parseFreeSlotCommand(Arguments arguments) throws ShengException {
+        int after = 1;
+        int hours = arguments.getNumber(Arguments.MAIN, ERROR_FREE_SLOT_NO_HOURS);
+        if (hours <= 0) {
+            throw new ShengException(ERROR_FREE_SLOT_NO_HOURS);
+        }
+        return new ParsedCommand(Command.FREE_SLOT, null, null, hours, null, arguments.getOptionalTime(after), null);
     }
 
     /**
@@ -281,7 +338,7 @@ public class Parser {
      * @param taskCount The total number of tasks.
      * @throws ShengException If the index is out of range.
      */
-    private static void validateTaskIndex(int index, int taskCount) throws ShengException {
+    static void validateTaskIndex(int index, int taskCount) throws ShengException {
         if (index < 0 || index >= taskCount) {
             String taskWord = taskCount == 1 ? "task" : "tasks";
             throw new ShengException(String.format(ERROR_OUT_OF_RANGE, taskCount, taskWord));
@@ -289,133 +346,184 @@ public class Parser {
     }
 
     /**
-     * Extracts the description from a todo command.
-     *
-     * @param input The user input string.
-     * @return The todo description.
-     * @throws ShengException If the description is empty.
+     * Returns whether the character is one that {@link String#trim()} would remove.
      */
-    public static String getTodoDescription(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        String description = input.substring(TODO_PREFIX_LENGTH).trim();
-        if (description.isEmpty()) {
-            throw new ShengException(ERROR_TODO_NO_DESCRIPTION);
-        }
-        assert !description.isEmpty() : "Description should not be empty after validation";
-        return description;
+    private static boolean isSpace(char c) {
+        return c <= ' ';
     }
 
-    /**
-     * Extracts the description from a deadline command.
-     *
-     * @param input The user input string.
-     * @return The deadline description.
-     * @throws ShengException If the description is empty.
-     */
-    public static String getDeadlineDescription(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        int byIndex = input.indexOf(DELIMITER_BY);
-        assert byIndex != -1 : "Input should contain /by marker";
-        String description = input.substring(DEADLINE_PREFIX_LENGTH, byIndex).trim();
-        if (description.isEmpty()) {
-            throw new ShengException(ERROR_DEADLINE_NO_DESCRIPTION);
+    private static int skipWhitespace(String input, int start, int end) {
+        while (start < end && isSpace(input.charAt(start))) {
+            start++;
         }
-        assert !description.isEmpty() : "Description should not be empty after validation";
-        return description;
+        return start;
     }
 
-    /**
-     * Extracts the deadline time from a deadline command.
-     *
-     * @param input The user input string.
-     * @return The deadline time.
-     * @throws ShengException If the deadline time is empty.
-     */
-    public static String getDeadlineBy(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        int byIndex = input.indexOf(DELIMITER_BY);
-        assert byIndex != -1 : "Input should contain /by marker";
-        String by = input.substring(byIndex + BY_OFFSET).trim();
-        if (by.isEmpty()) {
-            throw new ShengException(ERROR_DEADLINE_NO_TIME);
+    private static int skipWhitespaceBackwards(String input, int start, int end) {
+        while (end > start && isSpace(input.charAt(end - 1))) {
+            end--;
         }
-        assert !by.isEmpty() : "By string should not be empty after validation";
-        return by;
+        return end;
     }
 
     /**
-     * Extracts the description from an event command.
-     *
-     * @param input The user input string.
-     * @return The event description.
-     * @throws ShengException If the description is empty.
+     * The arguments after a command word, found in one pass over the line.
+     * The main argument runs up to the first delimiter, and each delimiter's argument runs up to
+     * the next delimiter or the end of the line, so delimiters may come in any order.
+     * Only the first occurrence of each delimiter counts, and a delimiter followed directly by a
+     * letter is part of a longer word instead.
      */
-    public static String getEventDescription(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        int fromIndex = input.indexOf(DELIMITER_FROM);
-        assert fromIndex != -1 : "Input should contain /from marker";
-        String description = input.substring(EVENT_PREFIX_LENGTH, fromIndex).trim();
-        if (description.isEmpty()) {
-            throw new ShengException(ERROR_EVENT_NO_DESCRIPTION);
+    private static final class Arguments {
+        static final int MAIN = 0;
+        // No command takes more delimiters than this
+        private static final int MAX_DELIMITERS = 2;
+        private static final int ABSENT = -1;
+
+        private final String input;
+        private final String[] delimiters;
+        // Where each argument starts and ends in the input, indexed by argument; absent ones start at ABSENT
+        private final int[] starts = {ABSENT, ABSENT, ABSENT};
+        private final int[] ends = new int[MAX_DELIMITERS + 1];
+
+        Arguments(String input, int start, int end, String[] delimiters) {
+            assert delimiters.length <= MAX_DELIMITERS : "Too many delimiters";
+            this.input = input;
+            this.delimiters = delimiters;
+            int current = MAIN;
+            int currentStart = start;
+            int slash = delimiters.length == 0 ? -1 : input.indexOf('/', start);
+            while (slash != -1 && slash < end) {
+                int found = findDelimiter(slash, end);
+                if (found == -1) {
+                    slash = input.indexOf('/', slash + 1);
+                    continue;
+                }
+                setBounds(current, currentStart, slash);
+                current = found + 1;
+                currentStart = slash + delimiters[found].length();
+                slash = input.indexOf('/', currentStart);
+            }
+            setBounds(current, currentStart, end);
         }
-        assert !description.isEmpty() : "Description should not be empty after validation";
-        return description;
-    }
 
-    /**
-     * Extracts the start time from an event command.
-     *
-     * @param input The user input string.
-     * @return The event start time.
-     * @throws ShengException If the start time is empty.
-     */
-    public static String getEventFrom(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        int fromIndex = input.indexOf(DELIMITER_FROM);
-        int toIndex = input.indexOf(DELIMITER_TO);
-        assert fromIndex != -1 : "Input should contain /from marker";
-        assert toIndex != -1 : "Input should contain /to marker";
-        String from = input.substring(fromIndex + FROM_OFFSET, toIndex).trim();
-        if (from.isEmpty()) {
-            throw new ShengException(ERROR_EVENT_NO_START);
+        /**
+         * Returns which delimiter starts at the given index, if it has not been seen yet.
+         */
+        private int findDelimiter(int index, int end) {
+            for (int k = 0; k < delimiters.length; k++) {
+                String delimiter = delimiters[k];
+                int after = index + delimiter.length();
+                if (!has(k + 1) && input.startsWith(delimiter, index)
+                        && (after == end || !Character.isLetter(input.charAt(after)))) {
+                    return k;
+                }
+            }
+            return -1;
         }
-        assert !from.isEmpty() : "From string should not be empty after validation";
-        return from;
-    }
 
-    /**
-     * Extracts the end time from an event command.
-     *
-     * @param input The user input string.
-     * @return The event end time.
-     * @throws ShengException If the end time is empty.
-     */
-    public static String getEventTo(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        int toIndex = input.indexOf(DELIMITER_TO);
-        assert toIndex != -1 : "Input should contain /to marker";
-        String to = input.substring(toIndex + TO_OFFSET).trim();
-        if (to.isEmpty()) {
-            throw new ShengException(ERROR_EVENT_NO_END);
+        boolean has(int argument) {
+            return starts[argument] != ABSENT;
         }
-        assert !to.isEmpty() : "To string should not be empty after validation";
-        return to;
-    }
 
-    /**
-     * Extracts the search keyword from a find command.
-     *
-     * @param input The user input string.
-     * @return The search keyword.
-     * @throws ShengException If the keyword is empty.
-     */
-    public static String getFindKeyword(String input) throws ShengException {
-        assert input != null : "Input cannot be null";
-        String keyword = input.substring(FIND_PREFIX_LENGTH).trim();
-        if (keyword.isEmpty()) {
-            throw new ShengException(ERROR_FIND_NO_KEYWORD);
+        boolean isBlank(int argument) {
+            return !has(argument) || starts[argument] == ends[argument];
+        }
+
+        String getText(int argument) {
+            return input.substring(starts[argument], ends[argument]);
+        }
+
+        int getNumber(int argument, String error) throws ShengException {
+            if (isBlank(argument)) {
+                throw new ShengException(error);
+            }
+            try {
+                return Integer.parseInt(input, starts[argument], ends[argument], 10);
+            } catch (NumberFormatException e) {
+                throw new ShengException(error);
+            }
+        }
+
+        /**
+         * Returns the task numbers in the argument as the first and last number of each range, one
+         * pair after another. Ranges are separated by commas, and a lone number is a range of one.
+         *
+         * @throws ShengException If a range is not a number or two numbers joined by a dash, or runs backwards.
+         */
+        List<Integer> getRanges(int argument) throws ShengException {
+            int start = starts[argument];
+            int end = ends[argument];
+            int rangeCount = 1;
+            for (int i = start; i < end; i++) {
+                if (input.charAt(i) == ',') {
+                    rangeCount++;
+                }
+            }
+            Integer[] ranges = new Integer[rangeCount * 2];
+            int rangeStart = start;
+            for (int k = 0; k < ranges.length; k += 2) {
+                int rangeEnd = input.indexOf(',', rangeStart);
+                if (rangeEnd == -1 || rangeEnd > end) {
+                    rangeEnd = end;
+                }
+                int dash = input.indexOf('-', rangeStart);
+                if (dash == -1 || dash >= rangeEnd) {
+                    ranges[k] = parseNumber(rangeStart, rangeEnd);
+                    ranges[k + 1] = ranges[k];
+                } else {
+                    ranges[k] = parseNumber(rangeStart, dash);
+                    ranges[k + 1] = parseNumber(dash + 1, rangeEnd);
+                    if (ranges[k] > ranges[k + 1]) {
+                        throw new ShengException(ERROR_BACKWARDS_RANGE);
+                    }
+                }
+                rangeStart = rangeEnd + 1;
+            }
+            // The command keeps this list as it is, so it must not be changeable
+            return Collections.unmodifiableList(Arrays.asList(ranges));
+        }
+
+        private int parseNumber(int start, int end) throws ShengException {
+            start = skipWhitespace(input, start, end);
+            end = skipWhitespaceBackwards(input, start, end);
+            try {
+                return Integer.parseInt(input, start, end, 10);
+            } catch (NumberFormatException e) {
+                throw new ShengException(ERROR_INVALID_NUMBER);
+            }
+        }
+
+        LocalDateTime getTime(int argument) throws ShengException {
+            try {
+                return DateTimeCodec.parse(input, starts[argument], ends[argument]);
+            } catch (DateTimeParseException e) {
+                throw new ShengException(ERROR_INVALID_DATE);
+            }
+        }
+
+        /**
+         * Returns the time after a delimiter, or null if the delimiter is absent.
+         *
+         * @throws ShengException If the delimiter has no time after it or the time is invalid.
+         */
+        LocalDateTime getOptionalTime(int argument) throws ShengException {
+            if (!has(argument)) {
+                return null;
+            }
+            if (isBlank(argument)) {
+                throw new ShengException(String.format(ERROR_DUE_NO_TIME, delimiters[argument - 1]));
+            }
+            return getTime(argument);
+        }
+
+        /**
+         * Records where an argument is, trimmed of the spaces around it.
+         */
+        private void setBounds(int argument, int start, int end) {
+            start = skipWhitespace(input, start, end);
+            end = skipWhitespaceBackwards(input, start, end);
+            starts[argument] = start;
+            ends[argument] = end;
         }
-        assert !keyword.isEmpty() : "Keyword should not be empty after validation";
-        return keyword;
     }
 }
@@ -0,0 +1,176 @@
+package sheng.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+import sheng.task.Todo;
+
+/**
+ * Reads and writes the compact binary task file format.
+ * The file starts with a magic number, a format version, the journal sequence number
+ * folded into the file and the task count. Each task is then stored as a type byte,
+ * a done flag, its date and times as minutes since the epoch and a length-prefixed
+ * UTF-8 description. Files are read through a memory-mapped buffer, so no text is
+ * split or date strings parsed on load.
+ */
+class BinaryTaskFile {
+    static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x53484E47; // "SHNG"
+    private static final byte VERSION = 1;
+    static final byte TYPE_TODO = 'T';
+    static final byte TYPE_DEADLINE = 'D';
+    static final byte TYPE_EVENT = 'E';
+    private static final long SECONDS_PER_MINUTE = 60;
+
+    /**
+     * Writes the tasks to the given file in the binary format.
+     *
+     * @param tasks The tasks to write.
+     * @param seq The last journal sequence number reflected in the tasks.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(List<Task> tasks, long seq, Path path) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seq);
+            out.writeInt(tasks.size());
+            for (Task task : tasks) {
+                writeTask(out, task);
+            }
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        if (task instanceof Deadline) {
+            out.writeByte(TYPE_DEADLINE);
+            out.writeBoolean(task.isDone());
+            out.writeLong(toEpochMinute(((Deadline) task).getBy()));
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            out.writeByte(TYPE_EVENT);
+            out.writeBoolean(task.isDone());
+            out.writeLong(toEpochMinute(event.getFrom()));
+            out.writeLong(toEpochMinute(event.getTo()));
+        } else {
+            out.writeByte(TYPE_TODO);
+            out.writeBoolean(task.isDone());
+        }
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(description.length);
+        out.write(description);
+    }
+
+    /**
+     * Reads the tasks in the given binary file into the list.
+     * A truncated or corrupted file yields the tasks before the damage and a warning, together
+     * with the sequence number in its header, since the tasks lost at the end were folded too.
+     *
+     * @param path The file to read.
+     * @param tasks The list to add the tasks to.
+     * @return The last journal sequence number folded into the file, or 0 for an empty file.
+     * @throws IOException If the file cannot be read, is not in the binary format, or has no whole header.
+     */
+    static long read(Path path, ArrayList<Task> tasks) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Task file is too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long seq;
+            int count;
+            try {
+                if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                    throw new IOException("Not a binary task file: " + path);
+                }
+                seq = buffer.getLong();
+                count = buffer.getInt();
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Binary task file ends inside its header: " + path);
+            }
+            try {
+                tasks.ensureCapacity(tasks.size() + count);
+                for (int i = 0; i < count; i++) {
+                    Task task = readTask(buffer);
+                    if (task == null) {
+                        System.out.println("Warning: Skipping corrupted task - Unknown task type at record " + (i + 1));
+                        break;
+                    }
+                    tasks.add(task);
+                }
+                return seq;
+            } catch (BufferUnderflowException e) {
+                System.out.println("Warning: Skipping corrupted task - Task file ends after "
+                        + tasks.size() + " tasks");
+                return seq;
+            }
+        }
+    }
+
+    private static Task readTask(MappedByteBuffer buffer) {
+        byte type = buffer.get();
+        boolean isDone = buffer.get() != 0;
+        Task task;
+        switch (type) {
+        case TYPE_TODO:
+            task = new Todo(readDescription(buffer));
+            break;
+        case TYPE_DEADLINE:
+            LocalDateTime by = fromEpochMinute(buffer.getLong());
+            task = new Deadline(readDescription(buffer), by);
+            break;
+        case TYPE_EVENT:
+            LocalDateTime from = fromEpochMinute(buffer.getLong());
+            LocalDateTime to = fromEpochMinute(buffer.getLong());
+            task = new Event(readDescription(buffer), from, to);
+            break;
+        default:
+            return null;
+        }
+        if (isDone) {
+            task.markAsDone();
+            task.markClean();
+        }
+        return task;
+    }
+
+    private static String readDescription(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / SECONDS_PER_MINUTE;
+    }
+
+    static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * SECONDS_PER_MINUTE, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,463 @@
+package sheng.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import sheng.exception.ShengException;
+import sheng.task.Task;
+
+/**
+ * Append-only log of task list mutations kept next to the data file.
+ * Each mutation is written as one short line tagged with a sequence number, so the cost
+ * of persisting a change does not depend on how many tasks are in the list.
+ * When the journal is compacted it is first rotated aside, letting new records go to a
+ * fresh file while the rotated one is folded into the data file.
+ * Records carry a {@link RecordChecksum} prefix. A record cut short at the end of the journal
+ * is dropped on load, and the journal is trimmed back to the last whole record before anything
+ * new is appended.
+ */
+class Journal {
+    private static final String SEPARATOR = " | ";
+    private static final String ROTATED_SUFFIX = ".old";
+    private static final String OP_ADD = "ADD";
+    private static final String OP_MARK = "MARK";
+    private static final String OP_UNMARK = "UNMARK";
+    private static final String OP_DELETE = "DELETE";
+    private static final String OP_CLEAR = "CLEAR";
+    private static final String INDEX_SEPARATOR = ",";
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private final Path journalPath;
+    private final Path rotatedPath;
+    private long lastSeq;
+    private long recordCount;
+    private long byteCount;
+    private WriteBehindQueue writeBehind;
+
+    /**
+     * Constructs a Journal backed by the given file.
+     *
+     * @param journalPath The path of the journal file.
+     */
+    Journal(Path journalPath) {
+        assert journalPath != null : "Journal path cannot be null";
+        this.journalPath = journalPath;
+        this.rotatedPath = Paths.get(journalPath + ROTATED_SUFFIX);
+    }
+
+    void appendAdd(Task task) throws IOException {
+        assert task != null : "Task to journal cannot be null";
+        append(OP_ADD + SEPARATOR + task.toFileFormat());
+    }
+
+    void appendMark(int index) throws IOException {
+        append(OP_MARK + SEPARATOR + index);
+    }
+
+    void appendUnmark(int index) throws IOException {
+        append(OP_UNMARK + SEPARATOR + index);
+    }
+
+    void appendDelete(int index) throws IOException {
+        append(OP_DELETE + SEPARATOR + index);
+    }
+
+    /**
+     * Appends the marking of several tasks as one record, so that either all of them or none
+     * survive a crash.
+     *
+     * @param indices The indices of the marked tasks.
+     */
+    void appendMarks(int[] indices) throws IOException {
+        append(OP_MARK + SEPARATOR + joinIndices(indices));
+    }
+
+    void appendUnmarks(int[] indices) throws IOException {
+        append(OP_UNMARK + SEPARATOR + joinIndices(indices));
+    }
+
+    /**
+     * Appends the deletion of several tasks as one record. The tasks are removed from the highest
+     * index down when the record is replayed.
+     *
+     * @param indices The indices the deleted tasks had, in increasing order.
+     */
+    void appendDeletes(int[] indices) throws IOException {
+        append(OP_DELETE + SEPARATOR + joinIndices(indices));
+    }
+
+    void appendClear() throws IOException {
+        append(OP_CLEAR);
+    }
+
+    private synchronized void append(String record) throws IOException {
+        byte[] body = ((lastSeq + 1) + SEPARATOR + record).getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[RecordChecksum.PREFIX_LENGTH + body.length + LINE_SEPARATOR.length];
+        System.arraycopy(body, 0, bytes, RecordChecksum.PREFIX_LENGTH, body.length);
+        System.arraycopy(LINE_SEPARATOR, 0, bytes, RecordChecksum.PREFIX_LENGTH + body.length,
+                LINE_SEPARATOR.length);
+        RecordChecksum.writePrefix(bytes, body, 0, body.length);
+        if (writeBehind != null) {
+            writeBehind.enqueue(bytes);
+        } else {
+            writeBatch(List.of(bytes));
+        }
+        lastSeq++;
+        recordCount++;
+        byteCount += bytes.length;
+    }
+
+    /**
+     * Appends the records to the journal file and syncs it to disk.
+     *
+     * @param batch The encoded records, in order.
+     * @throws IOException If the records cannot be written.
+     */
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (byte[] record : batch) {
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Hands records to a background writer that coalesces bursts into a single write.
+     *
+     * @param maxLatencyMillis The longest time a record may wait before it is written.
+     */
+    synchronized void enableWriteBehind(long maxLatencyMillis) {
+        if (writeBehind == null) {
+            writeBehind = new WriteBehindQueue(this::writeBatch, maxLatencyMillis);
+        }
+    }
+
+    /**
+     * Blocks until every record appended so far has been written to disk.
+     *
+     * @throws IOException If a queued record could not be written.
+     */
+    synchronized void flush() throws IOException {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * Writes any queued records and goes back to writing each record as it is appended.
+     * If a queued record could not be written, the queue is kept, so that it goes on rejecting
+     * records rather than letting them be written after the gap.
+     *
+     * @throws IOException If a queued record could not be written.
+     */
+    synchronized void disableWriteBehind() throws IOException {
+        if (writeBehind == null) {
+            return;
+        }
+        writeBehind.close();
+        writeBehind = null;
+    }
+
+    /**
+     * Returns the sequence number of the latest record written or replayed.
+     *
+     * @return The latest sequence number, or the data file's sequence number if there are no records.
+     */
+    synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns the number of records in the active journal file.
+     *
+     * @return The record count.
+     */
+    synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the size of the active journal file in bytes.
+     *
+     * @return The byte count.
+     */
+    synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Applies the records newer than {@code fromSeq}, in order, to the given tasks.
+     * A rotated journal left behind by an interrupted compaction is replayed first.
+     * Records that cannot be applied are skipped with a warning, the same way
+     * corrupted lines in the data file are.
+     *
+     * @param tasks The tasks loaded from the data file.
+     * @param fromSeq The sequence number already folded into the data file.
+     * @throws IOException If the journal cannot be read.
+     */
+    synchronized void replay(List<Task> tasks, long fromSeq) throws IOException {
+        replay(tasks, fromSeq, true);
+    }
+
+    /**
+     * Applies the records newer than {@code fromSeq} like {@link #replay(List, long)}, trimming a torn
+     * record off the end of the journal only if {@code isRepairing} is set.
+     *
+     * @param tasks The tasks loaded from the data file.
+     * @param fromSeq The sequence number already folded into the data file.
+     * @param isRepairing Whether the journal may be written to repair its end.
+     * @throws IOException If the journal cannot be read.
+     */
+    synchronized void replay(List<Task> tasks, long fromSeq, boolean isRepairing) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        long rotatedSeq = replayFile(rotatedPath, tasks, fromSeq, false);
+        long activeSeq = replayFile(journalPath, tasks, fromSeq, isRepairing);
+        lastSeq = Math.max(fromSeq, Math.max(rotatedSeq, activeSeq));
+        recordCount = countLines(journalPath);
+        byteCount = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+    }
+
+    /**
+     * Applies the records of the rotated journal newer than {@code fromSeq} to the given tasks.
+     *
+     * @param tasks The tasks read from the data file.
+     * @param fromSeq The sequence number already folded into the data file.
+     * @return The sequence number of the last record in the rotated journal.
+     * @throws IOException If the rotated journal cannot be read.
+     */
+    long replayRotated(List<Task> tasks, long fromSeq) throws IOException {
+        return Math.max(fromSeq, replayFile(rotatedPath, tasks, fromSeq, false));
+    }
+
+    /**
+     * Applies the records in one journal file newer than {@code fromSeq}.
+     * An unfinished record at the very end of the file is dropped. If {@code isRepairing} is set,
+     * the file is also cut back to the last whole record, or has its missing final line
+     * terminator restored, so that records appended later start on a line of their own.
+     */
+    private static long replayFile(Path path, List<Task> tasks, long fromSeq, boolean isRepairing)
+            throws IOException {
+        long maxSeq = 0;
+        if (!Files.exists(path)) {
+            return maxSeq;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            boolean isTerminated = lineEnd < bytes.length;
+            int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            try {
+                int recordStart = lineStart;
+                if (RecordChecksum.hasPrefix(buffer, lineStart, contentEnd)) {
+                    if (!RecordChecksum.isIntact(buffer, lineStart, contentEnd)) {
+                        throw new ShengException("Checksum mismatch!");
+                    }
+                    recordStart += RecordChecksum.PREFIX_LENGTH;
+                }
+                String line = new String(bytes, recordStart, contentEnd - recordStart, StandardCharsets.UTF_8);
+                int separatorIndex = line.indexOf(SEPARATOR);
+                if (separatorIndex == -1) {
+                    throw new ShengException("Invalid journal record!");
+                }
+                long seq = parseSeq(line.substring(0, separatorIndex));
+                maxSeq = Math.max(maxSeq, seq);
+                if (seq > fromSeq) {
+                    apply(line.substring(separatorIndex + SEPARATOR.length()), tasks);
+                }
+                if (!isTerminated && isRepairing) {
+                    appendToFile(path, LINE_SEPARATOR);
+                }
+            } catch (ShengException e) {
+                if (isTerminated) {
+                    System.out.println("Warning: Skipping corrupted journal record - " + e.getMessage());
+                } else {
+                    System.out.println("Warning: Discarding incomplete journal record at the end of the journal");
+                    if (isRepairing) {
+                        truncateFile(path, lineStart);
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return maxSeq;
+    }
+
+    private static void appendToFile(Path path, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static void truncateFile(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(false);
+        }
+    }
+
+    private static long countLines(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long count = 0;
+        for (byte b : Files.readAllBytes(path)) {
+            if (b == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void apply(String record, List<Task> tasks) throws ShengException {
+        if (record.equals(OP_CLEAR)) {
+            tasks.clear();
+            return;
+        }
+        int separatorIndex = record.indexOf(SEPARATOR);
+        if (separatorIndex == -1) {
+            throw new ShengException("Invalid journal record!");
+        }
+        String op = record.substring(0, separatorIndex);
+        String argument = record.substring(separatorIndex + SEPARATOR.length());
+        switch (op) {
+        case OP_ADD:
+            tasks.add(Storage.parseTask(argument));
+            break;
+        case OP_MARK:
+            for (int index : parseIndices(argument, tasks.size())) {
+                Task marked = tasks.get(index);
+                marked.markAsDone();
+                marked.markClean();
+            }
+            break;
+        case OP_UNMARK:
+            for (int index : parseIndices(argument, tasks.size())) {
+                Task unmarked = tasks.get(index);
+                unmarked.markAsNotDone();
+                unmarked.markClean();
+            }
+            break;
+        case OP_DELETE:
+            int[] deleted = parseIndices(argument, tasks.size());
+            for (int k = deleted.length - 1; k >= 0; k--) {
+                tasks.remove(deleted[k]);
+            }
+            break;
+        default:
+            throw new ShengException("Unknown journal operation: " + op);
+        }
+    }
+
+    private static long parseSeq(String token) throws ShengException {
+        try {
+            return Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            throw new ShengException("Invalid journal sequence number: " + token);
+        }
+    }
+
+    private static String joinIndices(int[] indices) {
+        assert indices.length > 0 : "A record needs at least one index";
+        StringBuilder joined = new StringBuilder();
+        for (int index : indices) {
+            if (joined.length() > 0) {
+                joined.append(INDEX_SEPARATOR);
+            }
+            joined.append(index);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Parses every index in a record before any is applied, so a damaged record changes nothing.
+     */
+    private static int[] parseIndices(String argument, int taskCount) throws ShengException {
+        String[] parts = argument.split(INDEX_SEPARATOR);
+        int[] indices = new int[parts.length];
+        for (int k = 0; k < parts.length; k++) {
+            indices[k] = parseIndex(parts[k], taskCount);
+        }
+        return indices;
+    }
+
+    private static int parseIndex(String argument, int taskCount) throws ShengException {
+        try {
+            int index = Integer.parseInt(argument.trim());
+            if (index < 0 || index >= taskCount) {
+                throw new ShengException("Task index out of range: " + index);
+            }
+            return index;
+        } catch (NumberFormatException e) {
+            throw new ShengException("Invalid task index: " + argument);
+        }
+    }
+
+    /**
+     * Moves the active journal aside so that it can be folded into the data file
+     * while new records go to a fresh journal.
+     * Nothing is moved if a rotated journal from an earlier compaction is still waiting to be folded.
+     *
+     * @throws IOException If the journal cannot be moved.
+     */
+    synchronized void rotate() throws IOException {
+        flush();
+        if (Files.exists(rotatedPath) || !Files.exists(journalPath)) {
+            return;
+        }
+        Files.move(journalPath, rotatedPath, StandardCopyOption.REPLACE_EXISTING);
+        recordCount = 0;
+        byteCount = 0;
+    }
+
+    /**
+     * Returns whether a rotated journal is waiting to be folded into the data file.
+     *
+     * @return True if a rotated journal exists.
+     */
+    boolean hasRotated() {
+        return Files.exists(rotatedPath);
+    }
+
+    /**
+     * Deletes the rotated journal once its records have been folded into the data file.
+     *
+     * @throws IOException If the rotated journal cannot be removed.
+     */
+    void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    /**
+     * Discards all records, typically after the full task list has been written to the data file.
+     *
+     * @throws IOException If the journal cannot be removed.
+     */
+    synchronized void reset() throws IOException {
+        flush();
+        Files.deleteIfExists(journalPath);
+        Files.deleteIfExists(rotatedPath);
+        recordCount = 0;
+        byteCount = 0;
+    }
+}
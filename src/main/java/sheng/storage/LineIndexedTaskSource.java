@@ -0,0 +1,359 @@
+package sheng.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import sheng.exception.ShengException;
+import sheng.task.Task;
+import sheng.task.TaskSource;
+
+/**
+ * A {@link TaskSource} over a text task file that only records where each line starts when opened.
+ * Lines are checked for the expected shape and checksum while indexing, so corrupted lines are still
+ * skipped with a warning up front, but a line is only turned into a {@link Task} when it is first loaded.
+ * The file is read through positional reads rather than a mapping, a window of lines at a time, so
+ * that reading the lines in order, as a snapshot does, takes one read per window. Before the data
+ * file is replaced, the source is detached: the file is copied aside and the copy is read instead,
+ * since some platforms will not replace a file that is still open. The copy is deleted once closed.
+ */
+class LineIndexedTaskSource implements TaskSource {
+    private static final String SEPARATOR = " | ";
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+    private static final int WINDOW_BYTES = 64 * 1024;
+    private static final String DETACHED_SUFFIX = ".detached";
+    private static final int DATE_TIME_LENGTH = "yyyy-MM-dd HHmm".length();
+    private static final int MIN_TASK_PARTS = 3;
+    private static final int MIN_DEADLINE_PARTS = 4;
+    private static final int MIN_EVENT_PARTS = 5;
+    private final Path path;
+    private FileChannel channel;
+    // The bytes of the file last read, from windowStart on
+    private ByteBuffer window = ByteBuffer.allocate(0);
+    private long windowStart;
+    private final long[] lineStarts;
+    private final int[] lineLengths;
+    private final BitSet eventRows;
+    private final int taskCount;
+    private final long seq;
+
+    private LineIndexedTaskSource(Path path, FileChannel channel, long[] lineStarts, int[] lineLengths,
+            BitSet eventRows, int taskCount, long seq) {
+        this.path = path;
+        this.channel = channel;
+        this.lineStarts = lineStarts;
+        this.lineLengths = lineLengths;
+        this.eventRows = eventRows;
+        this.taskCount = taskCount;
+        this.seq = seq;
+    }
+
+    /**
+     * Opens the text task file and indexes the start of every well-formed task line.
+     *
+     * @param path The text task file.
+     * @return The indexed source.
+     * @throws IOException If the file cannot be read.
+     */
+    static LineIndexedTaskSource open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return index(path, channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static LineIndexedTaskSource index(Path path, FileChannel channel) throws IOException {
+        long[] lineStarts = new long[1024];
+        int[] lineLengths = new int[1024];
+        BitSet eventRows = new BitSet();
+        int count = 0;
+        long seq = 0;
+        int lineNumber = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        long bufferStart = 0;
+        boolean isEndOfFile = false;
+        while (!isEndOfFile || buffer.position() > 0) {
+            if (!isEndOfFile) {
+                isEndOfFile = channel.read(buffer, bufferStart + buffer.position()) < 0;
+            }
+            byte[] bytes = buffer.array();
+            int limit = buffer.position();
+            int lineStart = 0;
+            for (int i = 0; i <= limit; i++) {
+                boolean isLineEnd = i < limit ? bytes[i] == '\n' : isEndOfFile && lineStart < limit;
+                if (!isLineEnd) {
+                    continue;
+                }
+                lineNumber++;
+                int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                if (lineNumber == 1 && startsWith(bytes, lineStart, lineEnd, TextTaskFile.SEQ_HEADER_PREFIX)) {
+                    seq = parseSeq(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                    continue;
+                }
+                int taskStart = lineStart;
+                String problem = null;
+                if (RecordChecksum.hasPrefix(buffer, lineStart, lineEnd)) {
+                    taskStart += RecordChecksum.PREFIX_LENGTH;
+                    if (!RecordChecksum.isIntact(buffer, lineStart, lineEnd)) {
+                        problem = "Checksum mismatch!";
+                    }
+                }
+                if (problem == null && !isWellFormed(bytes, taskStart, lineEnd)) {
+                    problem = "Invalid task format!";
+                }
+                if (problem == null) {
+                    if (count == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, count * 2);
+                        lineLengths = Arrays.copyOf(lineLengths, count * 2);
+                    }
+                    lineStarts[count] = bufferStart + taskStart;
+                    lineLengths[count] = lineEnd - taskStart;
+                    eventRows.set(count, bytes[taskStart] == 'E');
+                    count++;
+                } else if (i == limit) {
+                    // Only the very last line of the file can be unterminated, which is where an interrupted write stops
+                    System.out.println("Warning: Discarding incomplete task on line " + lineNumber);
+                } else {
+                    System.out.println("Warning: Skipping corrupted task on line " + lineNumber + " - " + problem);
+                }
+                lineStart = i + 1;
+            }
+            if (isEndOfFile) {
+                break;
+            }
+            // Carry the unfinished last line over to the next read, growing the buffer for very long lines
+            int remaining = limit - lineStart;
+            if (remaining == buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                larger.put(bytes, 0, remaining);
+                buffer = larger;
+            } else {
+                System.arraycopy(bytes, lineStart, bytes, 0, remaining);
+                buffer.position(remaining);
+            }
+            bufferStart += lineStart;
+        }
+        return new LineIndexedTaskSource(path, channel, lineStarts, lineLengths, eventRows, count, seq);
+    }
+
+    private static long parseSeq(String header) {
+        try {
+            return Long.parseLong(header.substring(TextTaskFile.SEQ_HEADER_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Warning: Ignoring corrupted journal header - " + header);
+            return 0;
+        }
+    }
+
+    /**
+     * Checks that a line has the parts {@link Storage#parseTask} expects, with well-formed dates,
+     * without decoding it.
+     */
+    private static boolean isWellFormed(byte[] bytes, int start, int end) {
+        int[] partStarts = new int[MIN_EVENT_PARTS + 1];
+        int parts = 1;
+        partStarts[0] = start;
+        for (int i = start; i + SEPARATOR.length() <= end && parts <= MIN_EVENT_PARTS; i++) {
+            if (startsWith(bytes, i, end, SEPARATOR)) {
+                partStarts[parts++] = i + SEPARATOR.length();
+                i += SEPARATOR.length() - 1;
+            }
+        }
+        if (parts < MIN_TASK_PARTS || partStarts[1] - start != 1 + SEPARATOR.length()) {
+            return false;
+        }
+        int descriptionEnd = parts > MIN_TASK_PARTS ? partStarts[3] - SEPARATOR.length() : end;
+        if (descriptionEnd <= partStarts[2]) {
+            return false;
+        }
+        switch (bytes[start]) {
+        case 'T':
+            return true;
+        case 'D':
+            return parts >= MIN_DEADLINE_PARTS
+                    && isDateTime(bytes, partStarts[3], partEnd(partStarts, parts, 3, end));
+        case 'E':
+            return parts >= MIN_EVENT_PARTS
+                    && isDateTime(bytes, partStarts[3], partEnd(partStarts, parts, 3, end))
+                    && isDateTime(bytes, partStarts[4], partEnd(partStarts, parts, 4, end));
+        default:
+            return false;
+        }
+    }
+
+    private static int partEnd(int[] partStarts, int parts, int part, int lineEnd) {
+        return part + 1 < parts ? partStarts[part + 1] - SEPARATOR.length() : lineEnd;
+    }
+
+    /**
+     * Checks for a {@code yyyy-MM-dd HHmm} date and time with fields in range.
+     */
+    private static boolean isDateTime(byte[] bytes, int start, int end) {
+        if (end - start != DATE_TIME_LENGTH || bytes[start + 4] != '-' || bytes[start + 7] != '-'
+                || bytes[start + 10] != ' ') {
+            return false;
+        }
+        int year = digits(bytes, start, 4);
+        int month = digits(bytes, start + 5, 2);
+        int day = digits(bytes, start + 8, 2);
+        int hour = digits(bytes, start + 11, 2);
+        int minute = digits(bytes, start + 13, 2);
+        return year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                && minute >= 0 && minute <= 59 && (hour >= 0 && hour <= 23 || hour == 24 && minute == 0);
+    }
+
+    private static int digits(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the last journal sequence number folded into the file.
+     *
+     * @return The sequence number from the header, or 0 if there is none.
+     */
+    long getSeq() {
+        return seq;
+    }
+
+    @Override
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Returns whether the task in the given row is an event, from its type letter seen while indexing.
+     */
+    @Override
+    public boolean isEvent(int row) {
+        return eventRows.get(row);
+    }
+
+    @Override
+    public synchronized Task loadTask(int row) {
+        try {
+            return Storage.parseTask(new String(readLine(row), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading task from file: " + e.getMessage(), e);
+        } catch (ShengException e) {
+            // Lines are checked when indexed, so this only happens if the file changed underneath us
+            throw new IllegalStateException("Task file changed while loading: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the bytes of the task line in the given row, without its checksum or line terminator.
+     *
+     * @param row The row of the task.
+     * @return The bytes of the line.
+     * @throws IOException If the line cannot be read.
+     */
+    synchronized byte[] readLine(int row) throws IOException {
+        assert row >= 0 && row < taskCount : "Row out of bounds: " + row;
+        long start = lineStarts[row];
+        int length = lineLengths[row];
+        if (start < windowStart || start + length > windowStart + window.limit()) {
+            fillWindow(start, length);
+        }
+        byte[] line = new byte[length];
+        window.get((int) (start - windowStart), line);
+        return line;
+    }
+
+    /**
+     * Reads the file into the window from the given position, taking at least the given number of bytes.
+     */
+    private void fillWindow(long position, int minLength) throws IOException {
+        if (channel == null) {
+            throw new IOException("Task file is already closed");
+        }
+        if (window.capacity() < Math.max(WINDOW_BYTES, minLength)) {
+            window = ByteBuffer.allocate(Math.max(WINDOW_BYTES, minLength));
+        }
+        window.clear();
+        while (window.position() < minLength) {
+            if (channel.read(window, position + window.position()) < 0) {
+                throw new IOException("Task file ended unexpectedly");
+            }
+        }
+        window.flip();
+        windowStart = position;
+    }
+
+    /**
+     * Copies the file aside and reads the copy from now on, so that the file can be replaced while
+     * tasks are still left to decode. Does nothing if the file is already closed.
+     *
+     * @throws IOException If the file cannot be copied.
+     */
+    synchronized void detach() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        Path copy = Files.createTempFile(directory, path.getFileName().toString(), DETACHED_SUFFIX);
+        FileChannel detached;
+        try {
+            try (FileChannel target = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                for (long position = 0; position < size; ) {
+                    long copied = channel.transferTo(position, size - position, target);
+                    if (copied <= 0) {
+                        throw new IOException("Task file ended unexpectedly");
+                    }
+                    position += copied;
+                }
+            }
+            detached = FileChannel.open(copy, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+        channel.close();
+        channel = detached;
+    }
+
+    /**
+     * Closes the file, deleting it if it is the copy made by {@link #detach()}.
+     * Tasks can no longer be loaded afterwards.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package sheng.storage;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Prefixes stored records with a CRC-32 of their UTF-8 bytes, so that a record cut short by a
+ * crash, or damaged afterwards, can be told apart from one that was written in full.
+ * A checksummed record is eight lowercase hex digits and a space followed by the record itself.
+ * Records written before checksums were added have no prefix and are read as they are. They can
+ * never be mistaken for a prefix, since they start with a one-letter task type or a sequence
+ * number followed by {@code " | "}.
+ */
+final class RecordChecksum {
+    static final int PREFIX_LENGTH = 9;
+    private static final int HEX_DIGITS = 8;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private RecordChecksum() {
+    }
+
+    /**
+     * Writes the checksum prefix of a record, including its trailing space.
+     *
+     * @param prefix The array to write the prefix to, at least {@link #PREFIX_LENGTH} long.
+     * @param record The bytes holding the record.
+     * @param offset The index of the first byte of the record.
+     * @param length The length of the record in bytes, without the line terminator.
+     */
+    static void writePrefix(byte[] prefix, byte[] record, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(record, offset, length);
+        long checksum = crc.getValue();
+        for (int i = 0; i < HEX_DIGITS; i++) {
+            prefix[i] = HEX[(int) (checksum >>> (4 * (HEX_DIGITS - 1 - i))) & 0xf];
+        }
+        prefix[HEX_DIGITS] = ' ';
+    }
+
+    /**
+     * Returns whether the line between {@code start} and {@code end} starts with a checksum prefix.
+     *
+     * @param buffer The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index after the last byte of the line, excluding the line terminator.
+     * @return True if the line is a checksummed record.
+     */
+    static boolean hasPrefix(ByteBuffer buffer, int start, int end) {
+        return end - start >= PREFIX_LENGTH && buffer.get(start + HEX_DIGITS) == ' '
+                && readPrefix(buffer, start) != -1;
+    }
+
+    /**
+     * Returns whether the checksum in the prefix of a line matches the record after it.
+     *
+     * @param buffer The buffer holding the line, which is left unchanged.
+     * @param start The index of the first byte of the prefix.
+     * @param end The index after the last byte of the record, excluding the line terminator.
+     * @return True if the record is intact.
+     */
+    static boolean isIntact(ByteBuffer buffer, int start, int end) {
+        assert hasPrefix(buffer, start, end) : "Line has no checksum prefix";
+        CRC32 crc = new CRC32();
+        ByteBuffer record = buffer.duplicate();
+        record.limit(end).position(start + PREFIX_LENGTH);
+        crc.update(record);
+        return crc.getValue() == readPrefix(buffer, start);
+    }
+
+    private static long readPrefix(ByteBuffer buffer, int start) {
+        long checksum = 0;
+        for (int i = start; i < start + HEX_DIGITS; i++) {
+            int digit = Character.digit(buffer.get(i), 16);
+            // Only lowercase digits are ever written
+            if (digit == -1 || buffer.get(i) >= 'A' && buffer.get(i) <= 'F') {
+                return -1;
+            }
+            checksum = checksum << 4 | digit;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,275 @@
+package sheng.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+import sheng.task.Todo;
+
+/**
+ * Reads and writes the slotted task file format, where each task lives in a fixed-size slot
+ * found from its ID. Changing, adding or deleting a task rewrites only that task's slot, so the
+ * bytes written for a change do not depend on how many tasks there are.
+ * The file starts with a magic number, a format version and the slot size. Each slot holds a
+ * CRC-32 of the rest of the slot, a used flag, the task type and done flag, its dates as minutes
+ * since the epoch and a length-prefixed UTF-8 description. A deleted task's slot is zeroed.
+ * When a description outgrows the slot size, the whole file is rewritten with larger slots.
+ *
+ * <p>Slots are never reused, as a slot belongs to its task's ID for good: deleting tasks leaves
+ * empty slots that keep the file as long as before until {@link Storage} loads it again and
+ * renumbers the tasks into a file without gaps. Clearing the list starts the IDs over instead.
+ */
+class SlotTaskFile {
+    static final String EXTENSION = ".slots";
+    private static final int MAGIC = 0x5348534C; // "SHSL"
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int DEFAULT_SLOT_BYTES = 128;
+    private static final int USED_OFFSET = 4;
+    private static final int DESCRIPTION_OFFSET = 28;
+    private static final byte USED = 1;
+
+    /**
+     * Writes the tasks to the given file, each in the slot for its ID.
+     *
+     * @param tasks The tasks to write, which must all have IDs.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(List<Task> tasks, Path path) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        ArrayList<Task> byId = new ArrayList<>(tasks);
+        byId.sort(Comparator.comparingLong(Task::getId));
+        int slotBytes = DEFAULT_SLOT_BYTES;
+        for (Task task : byId) {
+            slotBytes = Math.max(slotBytes, slotBytesFor(task));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put(VERSION).position(8);
+        header.putInt(slotBytes);
+        ByteBuffer slot = ByteBuffer.allocate(slotBytes);
+        byte[] emptySlot = new byte[slotBytes];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            out.write(header.array());
+            long nextId = 1;
+            for (Task task : byId) {
+                assert task.getId() >= nextId : "Task IDs must be positive and unique";
+                for (; nextId < task.getId(); nextId++) {
+                    out.write(emptySlot);
+                }
+                encode(task, slot);
+                out.write(slot.array());
+                nextId++;
+            }
+        }
+    }
+
+    /**
+     * Rewrites the slots of the changed and deleted tasks in place and syncs them to disk.
+     * Changed tasks are written before deleted ones, so a task that changed and was then deleted ends up deleted.
+     *
+     * @param path The file to update.
+     * @param changedTasks The tasks added or changed since the last save.
+     * @param deletedTasks The tasks deleted since the last save.
+     * @return False if nothing was written because the file has no header yet or a task no longer fits its slot.
+     * @throws IOException If the file cannot be written.
+     */
+    static boolean update(Path path, Collection<Task> changedTasks, Collection<Task> deletedTasks)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int slotBytes = readSlotBytes(channel);
+            if (slotBytes == -1) {
+                return false;
+            }
+            for (Task task : changedTasks) {
+                if (slotBytesFor(task) > slotBytes) {
+                    return false;
+                }
+            }
+            ByteBuffer slot = ByteBuffer.allocate(slotBytes);
+            for (Task task : changedTasks) {
+                encode(task, slot);
+                writeSlot(channel, task.getId(), slot);
+            }
+            for (Task task : deletedTasks) {
+                Arrays.fill(slot.array(), (byte) 0);
+                slot.clear();
+                writeSlot(channel, task.getId(), slot);
+            }
+            channel.force(false);
+            return true;
+        }
+    }
+
+    /**
+     * Reads the tasks in the given file into the list, in ID order.
+     * A slot whose checksum does not match is skipped with a warning.
+     *
+     * @param path The file to read.
+     * @param tasks The list to add the tasks to.
+     * @throws IOException If the file cannot be read or is not in the slotted format.
+     */
+    static void read(Path path, ArrayList<Task> tasks) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Task file is too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+                throw new IOException("Not a slotted task file: " + path);
+            }
+            int slotBytes = buffer.getInt(8);
+            if (slotBytes < DEFAULT_SLOT_BYTES) {
+                throw new IOException("Not a slotted task file: " + path);
+            }
+            long slotCount = (size - HEADER_BYTES) / slotBytes;
+            for (int i = 0; i < slotCount; i++) {
+                int base = HEADER_BYTES + i * slotBytes;
+                if (buffer.get(base + USED_OFFSET) != USED) {
+                    continue;
+                }
+                Task task = isIntact(buffer, base, slotBytes) ? decode(buffer, base, slotBytes) : null;
+                if (task == null) {
+                    System.out.println("Warning: Skipping corrupted task in slot " + (i + 1) + " - Checksum mismatch!");
+                    continue;
+                }
+                task.setId(i + 1L);
+                tasks.add(task);
+            }
+            if ((size - HEADER_BYTES) % slotBytes != 0) {
+                System.out.println("Warning: Discarding incomplete task in slot " + (slotCount + 1));
+            }
+        }
+    }
+
+    private static int readSlotBytes(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return -1;
+            }
+        }
+        if (header.getInt(0) != MAGIC || header.get(4) != VERSION) {
+            return -1;
+        }
+        return header.getInt(8);
+    }
+
+    private static void writeSlot(FileChannel channel, long id, ByteBuffer slot) throws IOException {
+        assert id > 0 : "Only tasks with IDs can be stored in slots";
+        long position = HEADER_BYTES + (id - 1) * slot.capacity();
+        while (slot.hasRemaining()) {
+            position += channel.write(slot, position);
+        }
+    }
+
+    private static int slotBytesFor(Task task) {
+        int needed = DESCRIPTION_OFFSET + task.getDescription().getBytes(StandardCharsets.UTF_8).length;
+        int slotBytes = DEFAULT_SLOT_BYTES;
+        while (slotBytes < needed) {
+            slotBytes *= 2;
+        }
+        return slotBytes;
+    }
+
+    /**
+     * Fills the buffer with the slot for the task, ready to be written from its start.
+     */
+    private static void encode(Task task, ByteBuffer slot) {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        assert DESCRIPTION_OFFSET + description.length <= slot.capacity() : "Task does not fit its slot";
+        Arrays.fill(slot.array(), (byte) 0);
+        slot.clear();
+        slot.position(USED_OFFSET);
+        slot.put(USED);
+        long first = 0;
+        long second = 0;
+        if (task instanceof Deadline) {
+            slot.put(BinaryTaskFile.TYPE_DEADLINE);
+            first = BinaryTaskFile.toEpochMinute(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            slot.put(BinaryTaskFile.TYPE_EVENT);
+            first = BinaryTaskFile.toEpochMinute(((Event) task).getFrom());
+            second = BinaryTaskFile.toEpochMinute(((Event) task).getTo());
+        } else {
+            slot.put(BinaryTaskFile.TYPE_TODO);
+        }
+        slot.put((byte) (task.isDone() ? 1 : 0));
+        slot.put((byte) 0);
+        slot.putLong(first).putLong(second).putInt(description.length).put(description);
+
+        CRC32 crc = new CRC32();
+        crc.update(slot.array(), USED_OFFSET, slot.capacity() - USED_OFFSET);
+        slot.putInt(0, (int) crc.getValue());
+        slot.clear();
+    }
+
+    private static boolean isIntact(ByteBuffer buffer, int base, int slotBytes) {
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.limit(base + slotBytes).position(base + USED_OFFSET);
+        crc.update(content);
+        return (int) crc.getValue() == buffer.getInt(base);
+    }
+
+    /**
+     * Decodes the task in an intact slot.
+     *
+     * @return The task, or null if the slot does not hold a valid task.
+     */
+    private static Task decode(ByteBuffer buffer, int base, int slotBytes) {
+        byte type = buffer.get(base + USED_OFFSET + 1);
+        boolean isDone = buffer.get(base + USED_OFFSET + 2) != 0;
+        LocalDateTime first = BinaryTaskFile.fromEpochMinute(buffer.getLong(base + 8));
+        LocalDateTime second = BinaryTaskFile.fromEpochMinute(buffer.getLong(base + 16));
+        int length = buffer.getInt(base + 24);
+        if (length <= 0 || DESCRIPTION_OFFSET + length > slotBytes) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(base + DESCRIPTION_OFFSET, bytes);
+        String description = new String(bytes, StandardCharsets.UTF_8);
+        Task task;
+        switch (type) {
+        case BinaryTaskFile.TYPE_TODO:
+            task = new Todo(description);
+            break;
+        case BinaryTaskFile.TYPE_DEADLINE:
+            task = new Deadline(description, first);
+            break;
+        case BinaryTaskFile.TYPE_EVENT:
+            task = new Event(description, first, second);
+            break;
+        default:
+            return null;
+        }
+        if (isDone) {
+            task.markAsDone();
+            task.markClean();
+        }
+        return task;
+    }
+}
@@ -3,149 +3,673 @@ package sheng.storage;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import sheng.exception.ShengException;
-import sheng.task.Deadline;
-import sheng.task.Event;
+import sheng.task.LazyTaskList;
 import sheng.task.Task;
-import sheng.task.Todo;
+import sheng.task.TaskList;
+import sheng.task.TaskSource;
+import sheng.task.TaskStore;
 
 /**
  * Handles loading and saving tasks to a file.
  */
 public class Storage {
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-    private static final int MIN_TASK_PARTS = 3;
-    private static final int MIN_DEADLINE_PARTS = 4;
-    private static final int MIN_EVENT_PARTS = 5;
-    private static final int TASK_TYPE_INDEX = 0;
-    private static final int TASK_DONE_INDEX = 1;
-    private static final int TASK_DESC_INDEX = 2;
-    private static final int TASK_DATETIME_INDEX = 3;
-    private static final int EVENT_TO_INDEX = 4;
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long DEFAULT_COMPACT_RECORD_THRESHOLD = 1000;
+    private static final long DEFAULT_COMPACT_BYTE_THRESHOLD = 1024 * 1024;
     private final Path filePath;
+    private final boolean isBinary;
+    private final boolean isSlotted;
+    private final Journal journal;
+    private final long compactRecordThreshold;
+    private final long compactByteThreshold;
+    private final ExecutorService compactor;
+    private final AtomicBoolean isCompactionScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean isShutdownHookRegistered = new AtomicBoolean(false);
+    private final Object snapshotLock = new Object();
+    private boolean isDeferred;
+    // Set once the data file could not be read, after which it is never written over
+    private volatile boolean isUnreadable;
+    // The source of the lazily loaded tasks, which still reads from the data file
+    private volatile LineIndexedTaskSource lazySource;
+
+    /**
+     * Functional interface for a single append to the journal.
+     */
+    @FunctionalInterface
+    private interface JournalAppend {
+        void appendTo(Journal journal) throws IOException;
+    }
+
+    /**
+     * Functional interface for handing a sequence of tasks to a visitor in order.
+     */
+    @FunctionalInterface
+    private interface TaskWalk {
+        void walk(TaskStore.TaskVisitor visitor) throws IOException;
+    }
 
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a Storage for the given data file.
+     * Files ending in {@code .bin} are kept in the compact binary format, all others as text.
+     * In journaled mode each mutation is appended to a journal next to the data file
+     * instead of rewriting the whole file, and the journal is replayed on {@link #load()}.
+     * Files ending in {@code .slots} never need a journal: each mutation rewrites only the
+     * fixed-size slots of the tasks it changed.
+     *
+     * @param filePath The path to the data file.
+     * @param isJournaled Whether mutations should be journaled.
+     */
+    public Storage(String filePath, boolean isJournaled) {
+        this(filePath, isJournaled, DEFAULT_COMPACT_RECORD_THRESHOLD, DEFAULT_COMPACT_BYTE_THRESHOLD);
+    }
+
+    /**
+     * Constructs a journaled Storage that compacts its journal in the background once it holds
+     * at least {@code compactRecordThreshold} records or {@code compactByteThreshold} bytes.
+     *
+     * @param filePath The path to the data file.
+     * @param isJournaled Whether mutations should be journaled.
+     * @param compactRecordThreshold The number of journal records that triggers a compaction.
+     * @param compactByteThreshold The journal size in bytes that triggers a compaction.
+     */
+    public Storage(String filePath, boolean isJournaled, long compactRecordThreshold, long compactByteThreshold) {
         assert filePath != null : "File path cannot be null";
+        assert compactRecordThreshold > 0 : "Compaction record threshold must be positive";
+        assert compactByteThreshold > 0 : "Compaction byte threshold must be positive";
         this.filePath = Paths.get(filePath);
+        this.isBinary = filePath.endsWith(BinaryTaskFile.EXTENSION);
+        this.isSlotted = filePath.endsWith(SlotTaskFile.EXTENSION);
+        boolean hasJournal = isJournaled && !isSlotted;
+        this.journal = hasJournal ? new Journal(Paths.get(filePath + JOURNAL_SUFFIX)) : null;
+        this.compactRecordThreshold = compactRecordThreshold;
+        this.compactByteThreshold = compactByteThreshold;
+        this.compactor = hasJournal ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sheng-compactor");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     public Storage() {
         this("data/sheng.txt");
     }
 
+    /**
+     * Loads the tasks in the data file, with the journal replayed on top of them.
+     * A data file that cannot be read is left as it is: this Storage then refuses to save anything,
+     * so that the tasks still in the file are not replaced by an empty list.
+     *
+     * @return The list of tasks.
+     * @throws UncheckedIOException If the data file or its journal cannot be read.
+     */
     public ArrayList<Task> load() {
+        return load(true);
+    }
+
+    /**
+     * Loads the tasks like {@link #load()}, but only reads the files: a torn journal is not trimmed
+     * and the journal is never compacted, so the files can be read while they are being converted.
+     *
+     * @return The list of tasks.
+     * @throws UncheckedIOException If the data file or its journal cannot be read.
+     */
+    ArrayList<Task> loadReadOnly() {
+        return load(false);
+    }
+
+    private ArrayList<Task> load(boolean isWritable) {
         ArrayList<Task> tasks = new ArrayList<>();
-        
         try {
-            File directory = filePath.getParent().toFile();
-            if (!directory.exists()) {
-                directory.mkdirs();
+            if (isWritable) {
+                ensureFileExists();
             }
-            
-            File file = filePath.toFile();
-            if (!file.exists()) {
-                file.createNewFile();
-                return tasks;
+            long snapshotSeq = readSnapshot(tasks);
+            if (isSlotted && isWritable) {
+                compactSlots(tasks);
+            }
+            if (journal != null) {
+                journal.replay(tasks, snapshotSeq, isWritable);
+                if (isWritable) {
+                    scheduleCompactionIfNeeded();
+                }
             }
-            
-            List<String> lines = Files.readAllLines(filePath);
-            tasks = lines.stream()
-                    .map(line -> {
-                        try {
-                            return parseTask(line);
-                        } catch (ShengException e) {
-                            System.out.println("Warning: Skipping corrupted task - " + e.getMessage());
-                            return null;
-                        }
-                    })
-                    .filter(task -> task != null)
-                    .collect(Collectors.toCollection(ArrayList::new));
         } catch (IOException e) {
-            System.out.println("Error loading tasks from file: " + e.getMessage());
+            throw markUnreadable(e);
         }
-        
-        assert tasks != null : "Task list should never be null";
         return tasks;
     }
 
+    /**
+     * Renumbers the tasks read from a slotted data file from 1 and rewrites the file if deleted
+     * tasks left empty slots behind. The IDs are only free to change before the tasks are handed
+     * out, so a file only sheds its empty slots when it is loaded.
+     */
+    private void compactSlots(ArrayList<Task> tasks) throws IOException {
+        if (tasks.isEmpty() || tasks.get(tasks.size() - 1).getId() == tasks.size()) {
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).setId(i + 1L);
+        }
+        writeSnapshot(walkOf(tasks), 0);
+    }
+
+    /**
+     * Loads the tasks without decoding them up front.
+     * Only the position of each task in the data file is read here; a task is decoded the first time
+     * it is accessed, so start-up time barely depends on the number of tasks.
+     * Binary and slotted data files are loaded eagerly, as their records are already cheap to decode.
+     *
+     * @return The list of tasks.
+     * @throws UncheckedIOException If the data file or its journal cannot be read.
+     */
+    public List<Task> loadLazily() {
+        if (isBinary || isSlotted) {
+            return load();
+        }
+        try {
+            ensureFileExists();
+            LineIndexedTaskSource source = LineIndexedTaskSource.open(filePath);
+            lazySource = source;
+            List<Task> tasks = new LazyTaskList(source);
+            if (journal != null) {
+                journal.replay(tasks, source.getSeq());
+                scheduleCompactionIfNeeded();
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw markUnreadable(e);
+        }
+    }
+
+    private UncheckedIOException markUnreadable(IOException e) {
+        isUnreadable = true;
+        return new UncheckedIOException("Error loading tasks from file: " + e.getMessage(), e);
+    }
+
+    /**
+     * Returns whether the data file may be written, printing why not if it may not.
+     */
+    private boolean canWrite() {
+        if (isUnreadable) {
+            System.out.println("Error saving tasks to file: " + filePath
+                    + " could not be read, so it is left unchanged");
+        }
+        return !isUnreadable;
+    }
+
+    private void ensureFileExists() throws IOException {
+        File directory = filePath.getParent().toFile();
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        
+        File file = filePath.toFile();
+        if (!file.exists()) {
+            file.createNewFile();
+        }
+    }
+
+    /**
+     * Reads the tasks in the data file into the given list.
+     *
+     * @param tasks The list to add the tasks to.
+     * @return The last journal sequence number folded into the data file, or 0 if there is none.
+     * @throws IOException If the data file cannot be read.
+     */
+    private long readSnapshot(ArrayList<Task> tasks) throws IOException {
+        if (!Files.exists(filePath)) {
+            return 0;
+        }
+        if (isBinary) {
+            return BinaryTaskFile.read(filePath, tasks);
+        }
+        if (isSlotted) {
+            SlotTaskFile.read(filePath, tasks);
+            return 0;
+        }
+        return TextTaskFile.read(filePath, tasks);
+    }
+
     public void save(ArrayList<Task> tasks) {
         assert tasks != null : "Tasks list cannot be null";
+        saveAll(walkOf(tasks));
+    }
+
+    /**
+     * Rewrites the data file with the given tasks, emptying the journal.
+     * Tasks of a lazily loaded list that are not decoded yet are written without being decoded.
+     */
+    private void saveAll(TaskWalk tasks) {
+        if (!canWrite()) {
+            return;
+        }
         try {
             File directory = filePath.getParent().toFile();
             if (!directory.exists()) {
                 directory.mkdirs();
             }
             
-            FileWriter writer = new FileWriter(filePath.toFile());
-            for (Task task : tasks) {
-                writer.write(task.toFileFormat() + System.lineSeparator());
+            if (journal != null) {
+                synchronized (snapshotLock) {
+                    writeSnapshot(tasks, journal.getLastSeq());
+                    journal.reset();
+                }
+                return;
             }
-            writer.close();
+            writeSnapshot(tasks, 0);
         } catch (IOException e) {
             System.out.println("Error saving tasks to file: " + e.getMessage());
         }
     }
 
-    private Task parseTask(String line) throws ShengException {
-        assert line != null : "Line to parse cannot be null";
-        String[] parts = line.split(" \\| ");
-        
-        if (parts.length < MIN_TASK_PARTS) {
-            throw new ShengException("Invalid task format!");
+    /**
+     * Writes the tasks to a temporary file next to the data file, syncs it to disk and then renames
+     * it over the data file, so neither a reader nor a crash ever leaves a half-written data file.
+     *
+     * @param tasks The tasks to write.
+     * @param seq The last journal sequence number reflected in the tasks.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    private void writeSnapshot(TaskWalk tasks, long seq) throws IOException {
+        replaceDataFile(writeTemporarySnapshot(tasks, seq));
+    }
+
+    /**
+     * Writes the tasks to a temporary file next to the data file and syncs it to disk.
+     * Text files are written one task at a time; the other formats gather the tasks first.
+     *
+     * @return The temporary file.
+     */
+    private Path writeTemporarySnapshot(TaskWalk tasks, long seq) throws IOException {
+        Path tempPath = Paths.get(filePath + TEMP_SUFFIX);
+        if (isBinary) {
+            BinaryTaskFile.write(gather(tasks), seq, tempPath);
+        } else if (isSlotted) {
+            SlotTaskFile.write(gather(tasks), tempPath);
+        } else {
+            try (TextTaskFile.SnapshotWriter writer = new TextTaskFile.SnapshotWriter(tempPath, seq)) {
+                tasks.walk(writer);
+            }
         }
-        assert parts.length >= MIN_TASK_PARTS : "Parts array should have minimum length after validation";
-        
-        String type = parts[TASK_TYPE_INDEX];
-        boolean isDone = parts[TASK_DONE_INDEX].equals("1");
-        String description = parts[TASK_DESC_INDEX];
-        
-        Task task;
-        switch (type) {
-        case "T":
-            task = new Todo(description);
-            break;
-        case "D":
-            if (parts.length < MIN_DEADLINE_PARTS) {
-                throw new ShengException("Invalid deadline format!");
+        // The new contents must be on disk before the rename can make them the data file
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        return tempPath;
+    }
+
+    /**
+     * Renames a snapshot written by {@link #writeTemporarySnapshot} over the data file.
+     */
+    private void replaceDataFile(Path tempPath) throws IOException {
+        if (lazySource != null) {
+            // The lazily loaded tasks must no longer need the data file once it is replaced
+            lazySource.detach();
+            lazySource = null;
+        }
+        try {
+            Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(filePath.toAbsolutePath().getParent());
+    }
+
+    private static TaskWalk walkOf(List<Task> tasks) {
+        return visitor -> {
+            for (Task task : tasks) {
+                visitor.visitTask(task);
             }
-            try {
-                LocalDateTime by = LocalDateTime.parse(parts[TASK_DATETIME_INDEX], FORMATTER);
-                task = new Deadline(description, by);
-            } catch (DateTimeParseException e) {
-                throw new ShengException("Invalid date format! Please use: yyyy-MM-dd HHmm");
+        };
+    }
+
+    private static ArrayList<Task> gather(TaskWalk tasks) throws IOException {
+        ArrayList<Task> gathered = new ArrayList<>();
+        tasks.walk(new TaskStore.TaskVisitor() {
+            @Override
+            public void visitTask(Task task) {
+                gathered.add(task);
             }
-            break;
-        case "E":
-            if (parts.length < MIN_EVENT_PARTS) {
-                throw new ShengException("Invalid event format!");
+
+            @Override
+            public void visitUndecoded(TaskSource source, int row) {
+                gathered.add(source.loadTask(row));
             }
+        });
+        return gathered;
+    }
+
+    /**
+     * Flushes a directory's entries to disk so that a rename inside it survives a crash.
+     * Not every platform can open a directory for this, in which case the rename is left to the file system.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be synced on this platform
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot of the data file.
+     * The journal is rotated first, so mutations recorded while compaction runs go to a new journal.
+     * Only the files on disk are read, never the in-memory task list.
+     */
+    public void compact() {
+        compactJournal();
+    }
+
+    private boolean compactJournal() {
+        if (journal == null || isUnreadable) {
+            return false;
+        }
+        synchronized (snapshotLock) {
             try {
-                LocalDateTime from = LocalDateTime.parse(parts[TASK_DATETIME_INDEX], FORMATTER);
-                LocalDateTime to = LocalDateTime.parse(parts[EVENT_TO_INDEX], FORMATTER);
-                task = new Event(description, from, to);
-            } catch (DateTimeParseException e) {
-                throw new ShengException("Invalid date format! Please use: yyyy-MM-dd HHmm");
+                journal.rotate();
+                if (isBinary || !Files.exists(filePath)) {
+                    ArrayList<Task> tasks = new ArrayList<>();
+                    long snapshotSeq = readSnapshot(tasks);
+                    long foldedSeq = journal.replayRotated(tasks, snapshotSeq);
+                    writeSnapshot(walkOf(tasks), foldedSeq);
+                } else {
+                    compactTextFile();
+                }
+                journal.discardRotated();
+                return true;
+            } catch (IOException e) {
+                System.out.println("Error compacting task journal: " + e.getMessage());
+                return false;
             }
-            break;
-        default:
-            throw new ShengException("Unknown task type: " + type);
         }
-        
-        if (isDone) {
-            task.markAsDone();
+    }
+
+    /**
+     * Folds the rotated journal into the text data file, reading the data file lazily so that only
+     * the tasks the journal changes are decoded and the rest are copied over as they are.
+     */
+    private void compactTextFile() throws IOException {
+        LineIndexedTaskSource source = LineIndexedTaskSource.open(filePath);
+        Path tempPath;
+        try {
+            LazyTaskList tasks = new LazyTaskList(source);
+            long foldedSeq = journal.replayRotated(tasks, source.getSeq());
+            tempPath = writeTemporarySnapshot(tasks::visit, foldedSeq);
+        } finally {
+            // The data file must be closed before it can be replaced on every platform
+            source.close();
         }
-        
-        return task;
+        replaceDataFile(tempPath);
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        boolean isOverThreshold = journal.getRecordCount() >= compactRecordThreshold
+                || journal.getByteCount() >= compactByteThreshold
+                || journal.hasRotated();
+        if (!isOverThreshold || !isCompactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        compactor.execute(() -> {
+            boolean isCompacted = false;
+            try {
+                isCompacted = compactJournal();
+            } finally {
+                isCompactionScheduled.set(false);
+            }
+            // Records appended while compacting may already be over the threshold again
+            if (isCompacted) {
+                scheduleCompactionIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Switches the journal to write-behind mode, where mutations are queued and written
+     * by a background thread in batches instead of blocking the caller on every disk write.
+     * Call {@link #flush()} or {@link #close()} to make sure queued mutations reach the disk.
+     *
+     * @param maxLatencyMillis The longest time a mutation may wait before it is written.
+     */
+    public void enableWriteBehind(long maxLatencyMillis) {
+        if (journal == null) {
+            return;
+        }
+        journal.enableWriteBehind(maxLatencyMillis);
+        if (isShutdownHookRegistered.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close, "sheng-storage-shutdown"));
+        }
+    }
+
+    /**
+     * Blocks until every mutation recorded so far has been written to disk.
+     */
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            System.out.println("Error saving tasks to file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes any queued mutations to disk and stops the background writer.
+     * Mutations recorded afterwards are written synchronously.
+     */
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.disableWriteBehind();
+        } catch (IOException e) {
+            System.out.println("Error saving tasks to file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops saving each mutation as it is recorded. The tasks keep track of what changed, and
+     * nothing reaches the disk until {@link #checkpoint(TaskList)} is called.
+     * This suits running many commands in a row, where saving after every one would dominate.
+     */
+    public void deferSaves() {
+        isDeferred = true;
+    }
+
+    /**
+     * Saves every change made to the tasks since they were last saved.
+     * A slotted data file has just the slots of the changed tasks rewritten; any other data file
+     * is rewritten whole, which also empties its journal.
+     *
+     * @param tasks All tasks.
+     */
+    public void checkpoint(TaskList tasks) {
+        if (isSlotted) {
+            saveChangedSlots(tasks);
+            return;
+        }
+        saveAll(tasks::visitTasks);
+        tasks.markSaved();
+    }
+
+    /**
+     * Persists a newly added task.
+     *
+     * @param tasks All tasks, including the added one.
+     * @param task The task that was added.
+     */
+    public void recordAdd(TaskList tasks, Task task) {
+        assert task != null : "Added task cannot be null";
+        record(tasks, j -> j.appendAdd(task));
+    }
+
+    /**
+     * Persists the marking of a task as done.
+     *
+     * @param tasks All tasks.
+     * @param index The zero-based index of the marked task.
+     */
+    public void recordMark(TaskList tasks, int index) {
+        record(tasks, j -> j.appendMark(index));
+    }
+
+    /**
+     * Persists the marking of a task as not done.
+     *
+     * @param tasks All tasks.
+     * @param index The zero-based index of the unmarked task.
+     */
+    public void recordUnmark(TaskList tasks, int index) {
+        record(tasks, j -> j.appendUnmark(index));
+    }
+
+    /**
+     * Persists the deletion of a task.
+     *
+     * @param tasks All remaining tasks.
+     * @param index The zero-based index the deleted task had.
+     */
+    public void recordDelete(TaskList tasks, int index) {
+        record(tasks, j -> j.appendDelete(index));
+    }
+
+    /**
+     * Persists the marking of several tasks as done with a single write.
+     *
+     * @param tasks All tasks.
+     * @param indices The zero-based indices of the marked tasks.
+     */
+    public void recordMarks(TaskList tasks, int[] indices) {
+        record(tasks, j -> j.appendMarks(indices));
+    }
+
+    /**
+     * Persists the marking of several tasks as not done with a single write.
+     *
+     * @param tasks All tasks.
+     * @param indices The zero-based indices of the unmarked tasks.
+     */
+    public void recordUnmarks(TaskList tasks, int[] indices) {
+        record(tasks, j -> j.appendUnmarks(indices));
+    }
+
+    /**
+     * Persists the deletion of several tasks with a single write.
+     *
+     * @param tasks All remaining tasks.
+     * @param indices The zero-based indices the deleted tasks had, in increasing order.
+     */
+    public void recordDeletes(TaskList tasks, int[] indices) {
+        record(tasks, j -> j.appendDeletes(indices));
+    }
+
+    /**
+     * Persists tasks added in one batch with a single write, rather than one per task.
+     *
+     * @param tasks All tasks, including the added ones.
+     */
+    public void recordImport(TaskList tasks) {
+        if (isDeferred) {
+            return;
+        }
+        checkpoint(tasks);
+    }
+
+    /**
+     * Persists the removal of all tasks.
+     *
+     * @param tasks All tasks, which should now be empty.
+     */
+    public void recordClear(TaskList tasks) {
+        record(tasks, Journal::appendClear);
+    }
+
+    /**
+     * Appends a mutation to the journal, rewrites the slots of the tasks it changed, or rewrites
+     * the data file when neither is available. Nothing is written while saves are deferred.
+     *
+     * @param tasks All tasks after the mutation.
+     * @param append The journal append describing the mutation.
+     */
+    private void record(TaskList tasks, JournalAppend append) {
+        if (isDeferred || !canWrite()) {
+            return;
+        }
+        if (isSlotted) {
+            saveChangedSlots(tasks);
+            return;
+        }
+        if (journal == null) {
+            saveAll(tasks::visitTasks);
+            tasks.markSaved();
+            return;
+        }
+        try {
+            append.appendTo(journal);
+            tasks.markSaved();
+            scheduleCompactionIfNeeded();
+        } catch (IOException e) {
+            System.out.println("Error saving tasks to file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes only the slots of the tasks changed or deleted since the last save.
+     * The whole file is rewritten instead after the list was cleared, or when a task has outgrown its slot.
+     *
+     * @param tasks All tasks after the mutation.
+     */
+    private void saveChangedSlots(TaskList tasks) {
+        if (!canWrite()) {
+            return;
+        }
+        try {
+            boolean isUpdated = !tasks.isCleared() && Files.exists(filePath)
+                    && SlotTaskFile.update(filePath, tasks.getDirtyTasks(), tasks.getDeletedTasks());
+            if (!isUpdated) {
+                save(tasks.getAllTasks());
+            }
+            tasks.markSaved();
+        } catch (IOException e) {
+            System.out.println("Error saving tasks to file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses one line of the text task file format into a task.
+     *
+     * @param line The line, without its line terminator.
+     * @return The parsed task.
+     * @throws ShengException If the line is not a valid task.
+     */
+    static Task parseTask(String line) throws ShengException {
+        assert line != null : "Line to parse cannot be null";
+        return TaskLineScanner.parse(line);
     }
 
     /**
@@ -176,9 +700,7 @@ public class Storage {
         
         // Write all tasks to archive file
         FileWriter writer = new FileWriter(archivePath.toFile());
-        for (Task task : tasks) {
-            writer.write(task.toFileFormat() + System.lineSeparator());
-        }
+        TextTaskFile.writeTasks(writer, tasks);
         writer.close();
         
         return archiveName;
@@ -0,0 +1,81 @@
+package sheng.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import sheng.task.TaskList;
+
+/**
+ * Converts task files between the text format, the compact binary format and the slotted format.
+ * Any journal next to the source file is replayed first, so the converted file holds
+ * the latest state of the task list.
+ *
+ * <p>Usage: {@code TaskFileConverter <source> <target>}, e.g.
+ * {@code TaskFileConverter data/sheng.txt data/sheng.bin}.
+ * The format of each file is decided by its extension.
+ */
+public class TaskFileConverter {
+    private static final String USAGE = "Usage: TaskFileConverter <source> <target>";
+
+    /**
+     * Converts a text task file to a binary task file.
+     *
+     * @param textPath The text file to read.
+     * @param binaryPath The binary file to write.
+     * @return The number of tasks converted.
+     * @throws IOException If the source does not exist or the target cannot be written.
+     */
+    public static int convertTextToBinary(Path textPath, Path binaryPath) throws IOException {
+        assert !textPath.toString().endsWith(BinaryTaskFile.EXTENSION) : "Source should be a text file";
+        assert binaryPath.toString().endsWith(BinaryTaskFile.EXTENSION) : "Target should be a binary file";
+        return convert(textPath, binaryPath);
+    }
+
+    /**
+     * Converts a binary task file to a text task file.
+     *
+     * @param binaryPath The binary file to read.
+     * @param textPath The text file to write.
+     * @return The number of tasks converted.
+     * @throws IOException If the source does not exist or the target cannot be written.
+     */
+    public static int convertBinaryToText(Path binaryPath, Path textPath) throws IOException {
+        assert binaryPath.toString().endsWith(BinaryTaskFile.EXTENSION) : "Source should be a binary file";
+        assert !textPath.toString().endsWith(BinaryTaskFile.EXTENSION) : "Target should be a text file";
+        return convert(binaryPath, textPath);
+    }
+
+    private static int convert(Path sourcePath, Path targetPath) throws IOException {
+        if (!Files.exists(sourcePath)) {
+            throw new IOException("Task file not found: " + sourcePath);
+        }
+        TaskList tasks;
+        try {
+            // Going through a TaskList gives every task an ID, which the slotted format stores
+            tasks = new TaskList(new Storage(sourcePath.toString(), true).loadReadOnly());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // Saving through a journaled Storage also clears any stale journal left next to the target
+        new Storage(targetPath.toString(), true).save(tasks.getAllTasks());
+        return tasks.getTaskCount();
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        Path sourcePath = Paths.get(args[0]);
+        Path targetPath = Paths.get(args[1]);
+        try {
+            int count = convert(sourcePath, targetPath);
+            System.out.println("Converted " + count + " tasks from " + sourcePath + " to " + targetPath);
+        } catch (IOException e) {
+            System.out.println("Error converting task file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package sheng.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import sheng.exception.ShengException;
+import sheng.task.DateTimeCodec;
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+import sheng.task.Todo;
+
+/**
+ * Reads tasks to import from a CSV file or a dump of the text task file.
+ * Files ending in {@code .csv} hold one task per row as {@code type,done,description[,time[,time]]},
+ * for example {@code D,0,return book,2026-03-15 1800}, with an optional header row. Empty fields
+ * after the last one a task needs are ignored, so every row may have as many columns as an event,
+ * as a spreadsheet exports them. Any other file
+ * is read as the text task file format, with or without checksums.
+ *
+ * <p>The file is streamed in blocks of rows. The rows of a block are checked in parallel on the
+ * common fork-join pool, and then reported in their original order: each rejected row to the
+ * listener straight away, and every valid row into the list returned once the whole file is read.
+ */
+public final class TaskImporter {
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String CSV_HEADER_TYPE = "type";
+    private static final String FILE_SEPARATOR = " | ";
+    private static final int BLOCK_ROWS = 8192;
+    private static final int PROGRESS_INTERVAL_ROWS = 100_000;
+    private static final int TODO_FIELDS = 3;
+    private static final int DEADLINE_FIELDS = 4;
+    private static final int EVENT_FIELDS = 5;
+
+    /**
+     * Receives what happens to the rows of a file while it is imported.
+     */
+    public interface Listener {
+        /**
+         * Called for each row that is not a valid task, in file order.
+         *
+         * @param lineNumber The line number of the row, starting from 1.
+         * @param reason Why the row was rejected.
+         */
+        void onRejected(long lineNumber, String reason);
+
+        /**
+         * Called each time the number of rows read passes another hundred thousand.
+         *
+         * @param rowCount The number of rows read so far.
+         */
+        void onProgress(long rowCount);
+    }
+
+    private TaskImporter() {
+    }
+
+    /**
+     * Reads every valid task in the file, reporting the rows that are not.
+     * Blank lines are skipped, as are the header row of a CSV file and the sequence header of a task file.
+     *
+     * @param path The file to import.
+     * @param listener The listener to report rejected rows and progress to.
+     * @return The valid tasks, in file order.
+     * @throws IOException If the file cannot be read.
+     */
+    public static ArrayList<Task> read(Path path, Listener listener) throws IOException {
+        assert path != null && listener != null : "Path and listener cannot be null";
+        boolean isCsv = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(CSV_EXTENSION);
+        ArrayList<Task> tasks = new ArrayList<>();
+        String[] lines = new String[BLOCK_ROWS];
+        Object[] rows = new Object[BLOCK_ROWS];
+        long lineCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            while (true) {
+                int blockSize = 0;
+                String line;
+                while (blockSize < BLOCK_ROWS && (line = reader.readLine()) != null) {
+                    lines[blockSize++] = line;
+                }
+                if (blockSize == 0) {
+                    return tasks;
+                }
+                boolean isFirstBlock = lineCount == 0;
+                int size = blockSize;
+                // Each row is checked on its own, so the checks can run in any order on any thread
+                Arrays.parallelSetAll(rows, i -> i < size ? readRow(lines[i], isCsv, isFirstBlock && i == 0) : null);
+                for (int i = 0; i < blockSize; i++) {
+                    if (rows[i] instanceof Task) {
+                        tasks.add((Task) rows[i]);
+                    } else if (rows[i] instanceof String) {
+                        listener.onRejected(lineCount + i + 1, (String) rows[i]);
+                    }
+                }
+                long previousCount = lineCount;
+                lineCount += blockSize;
+                if (lineCount / PROGRESS_INTERVAL_ROWS > previousCount / PROGRESS_INTERVAL_ROWS) {
+                    listener.onProgress(lineCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one row into a task.
+     *
+     * @return The task, the reason the row was rejected, or null if the row holds no task.
+     */
+    private static Object readRow(String line, boolean isCsv, boolean isFirstLine) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            if (isCsv) {
+                String[] fields = splitCsv(line);
+                if (isFirstLine && fields[0].trim().equalsIgnoreCase(CSV_HEADER_TYPE)) {
+                    return null;
+                }
+                return readCsvRow(fields);
+            }
+            if (isFirstLine && line.startsWith(TextTaskFile.SEQ_HEADER_PREFIX)) {
+                return null;
+            }
+            return readFileRow(line);
+        } catch (ShengException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static Task readFileRow(String line) throws ShengException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (!RecordChecksum.hasPrefix(buffer, 0, bytes.length)) {
+            return TaskLineScanner.parse(line);
+        }
+        if (!RecordChecksum.isIntact(buffer, 0, bytes.length)) {
+            throw new ShengException("Checksum mismatch!");
+        }
+        return TaskLineScanner.parse(line, RecordChecksum.PREFIX_LENGTH, line.length());
+    }
+
+    private static Task readCsvRow(String[] fields) throws ShengException {
+        String type = fields[0].trim();
+        int expectedFields = type.equalsIgnoreCase("T") ? TODO_FIELDS
+                : type.equalsIgnoreCase("D") ? DEADLINE_FIELDS
+                : type.equalsIgnoreCase("E") ? EVENT_FIELDS
+                : 0;
+        if (expectedFields == 0) {
+            throw new ShengException("Unknown task type: " + type);
+        }
+        int fieldCount = fields.length;
+        while (fieldCount > expectedFields && fields[fieldCount - 1].isBlank()) {
+            fieldCount--;
+        }
+        if (fieldCount != expectedFields) {
+            throw new ShengException("Expected " + expectedFields + " fields but found " + fieldCount + "!");
+        }
+        String done = fields[1].trim();
+        if (!done.equals("0") && !done.equals("1")) {
+            throw new ShengException("Done must be 0 or 1!");
+        }
+        String description = fields[2].trim();
+        if (description.isEmpty()) {
+            throw new ShengException("Missing description!");
+        }
+        if (description.contains(FILE_SEPARATOR)) {
+            // The task file could not tell this apart from the end of the description
+            throw new ShengException("Descriptions cannot contain \"" + FILE_SEPARATOR + "\"!");
+        }
+
+        Task task;
+        if (expectedFields == TODO_FIELDS) {
+            task = new Todo(description);
+        } else if (expectedFields == DEADLINE_FIELDS) {
+            task = new Deadline(description, parseTime(fields[3]));
+        } else {
+            task = new Event(description, parseTime(fields[3]), parseTime(fields[4]));
+        }
+        if (done.equals("1")) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    private static LocalDateTime parseTime(String field) throws ShengException {
+        try {
+            return DateTimeCodec.parse(field.trim());
+        } catch (DateTimeParseException e) {
+            throw new ShengException("Invalid date format! Please use: yyyy-MM-dd HHmm");
+        }
+    }
+
+    /**
+     * Splits a CSV row into its fields. A field may be quoted to hold commas, with any quote inside
+     * it doubled.
+     *
+     * @throws ShengException If a quoted field is not closed.
+     */
+    static String[] splitCsv(String line) throws ShengException {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    isQuoted = false;
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (isQuoted) {
+            throw new ShengException("Unclosed quote!");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
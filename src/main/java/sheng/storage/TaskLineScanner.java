@@ -0,0 +1,139 @@
+package sheng.storage;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import sheng.exception.ShengException;
+import sheng.task.DateTimeCodec;
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+import sheng.task.Todo;
+
+/**
+ * Parses lines of the text task file format by scanning for the {@code " | "} field separators
+ * by index instead of splitting with a regular expression.
+ * The done flag and {@code yyyy-MM-dd HHmm} timestamps are read straight from the line, the
+ * timestamps through {@link DateTimeCodec}, so no intermediate Strings are built besides the
+ * description itself.
+ */
+final class TaskLineScanner {
+    private static final String SEPARATOR = " | ";
+    private static final int MAX_PARTS = 5;
+    private static final int MIN_TASK_PARTS = 3;
+    private static final int MIN_DEADLINE_PARTS = 4;
+    private static final int MIN_EVENT_PARTS = 5;
+    private static final int TASK_TYPE_INDEX = 0;
+    private static final int TASK_DONE_INDEX = 1;
+    private static final int TASK_DESC_INDEX = 2;
+    private static final int TASK_DATETIME_INDEX = 3;
+    private static final int EVENT_TO_INDEX = 4;
+
+    private TaskLineScanner() {
+    }
+
+    /**
+     * Parses a whole line into a task.
+     *
+     * @param line The line, without its line terminator.
+     * @return The parsed task.
+     * @throws ShengException If the line is not a valid task.
+     */
+    static Task parse(CharSequence line) throws ShengException {
+        return parse(line, 0, line.length());
+    }
+
+    /**
+     * Parses the characters between {@code start} and {@code end} into a task.
+     *
+     * @param text The text holding the line.
+     * @param start The index of the first character of the line.
+     * @param end The index after the last character of the line.
+     * @return The parsed task.
+     * @throws ShengException If the line is not a valid task.
+     */
+    static Task parse(CharSequence text, int start, int end) throws ShengException {
+        assert text != null : "Line to parse cannot be null";
+        // Part i spans [partStarts[i], partEnds[i]), as String.split(" \\| ") would give it. Only the first
+        // MAX_PARTS parts are recorded, since no task reads more; any parts after those are skipped
+        int[] partStarts = new int[MAX_PARTS];
+        int[] partEnds = new int[MAX_PARTS];
+        int parts = 0;
+        int partStart = start;
+        for (int i = start; i <= end - SEPARATOR.length(); i++) {
+            if (isSeparatorAt(text, i)) {
+                if (parts < MAX_PARTS) {
+                    partStarts[parts] = partStart;
+                    partEnds[parts] = i;
+                    parts++;
+                }
+                partStart = i + SEPARATOR.length();
+                i += SEPARATOR.length() - 1;
+            }
+        }
+        if (parts < MAX_PARTS) {
+            partStarts[parts] = partStart;
+            partEnds[parts] = end;
+            parts++;
+        }
+        // Like String.split, trailing empty parts do not count
+        while (parts > 0 && partEnds[parts - 1] == partStarts[parts - 1]) {
+            parts--;
+        }
+
+        if (parts < MIN_TASK_PARTS) {
+            throw new ShengException("Invalid task format!");
+        }
+        boolean isDone = partEnds[TASK_DONE_INDEX] - partStarts[TASK_DONE_INDEX] == 1
+                && text.charAt(partStarts[TASK_DONE_INDEX]) == '1';
+        String description = text.subSequence(partStarts[TASK_DESC_INDEX], partEnds[TASK_DESC_INDEX]).toString();
+
+        Task task;
+        switch (typeOf(text, partStarts[TASK_TYPE_INDEX], partEnds[TASK_TYPE_INDEX])) {
+        case 'T':
+            task = new Todo(description);
+            break;
+        case 'D':
+            if (parts < MIN_DEADLINE_PARTS) {
+                throw new ShengException("Invalid deadline format!");
+            }
+            LocalDateTime by = parseDateTime(text, partStarts[TASK_DATETIME_INDEX], partEnds[TASK_DATETIME_INDEX]);
+            task = new Deadline(description, by);
+            break;
+        case 'E':
+            if (parts < MIN_EVENT_PARTS) {
+                throw new ShengException("Invalid event format!");
+            }
+            LocalDateTime from = parseDateTime(text, partStarts[TASK_DATETIME_INDEX],
+                    partEnds[TASK_DATETIME_INDEX]);
+            LocalDateTime to = parseDateTime(text, partStarts[EVENT_TO_INDEX], partEnds[EVENT_TO_INDEX]);
+            task = new Event(description, from, to);
+            break;
+        default:
+            throw new ShengException("Unknown task type: "
+                    + text.subSequence(partStarts[TASK_TYPE_INDEX], partEnds[TASK_TYPE_INDEX]));
+        }
+
+        if (isDone) {
+            task.markAsDone();
+            task.markClean();
+        }
+        return task;
+    }
+
+    private static boolean isSeparatorAt(CharSequence text, int index) {
+        return text.charAt(index) == ' ' && text.charAt(index + 1) == '|' && text.charAt(index + 2) == ' ';
+    }
+
+    private static char typeOf(CharSequence text, int start, int end) {
+        return end - start == 1 ? text.charAt(start) : 0;
+    }
+
+    private static LocalDateTime parseDateTime(CharSequence text, int start, int end) throws ShengException {
+        try {
+            return DateTimeCodec.parse(text, start, end);
+        } catch (DateTimeParseException e) {
+            throw new ShengException("Invalid date format! Please use: yyyy-MM-dd HHmm");
+        }
+    }
+}
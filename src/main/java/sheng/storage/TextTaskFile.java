@@ -0,0 +1,368 @@
+package sheng.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import sheng.exception.ShengException;
+import sheng.task.Task;
+import sheng.task.TaskSource;
+import sheng.task.TaskStore;
+
+/**
+ * Reads and writes the text task file format, one task per line.
+ * Each line written carries a {@link RecordChecksum} prefix, so a damaged line is skipped even if
+ * it still looks like a task, and an unfinished last line is told apart from a corrupted one.
+ * Large files are split into line-aligned byte ranges that are parsed in parallel on the
+ * common fork-join pool and then joined in their original order.
+ */
+class TextTaskFile {
+    static final String SEQ_HEADER_PREFIX = "#seq ";
+    private static final long PARALLEL_THRESHOLD_BYTES = 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 256 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_BYTES = 8192;
+    private static final int LINE_BUFFER_CHARS = 256;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Holds the outcome of parsing one byte range of the file.
+     */
+    private static class ParsedChunk {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final ArrayList<Integer> warningLines = new ArrayList<>();
+        private final ArrayList<String> warningMessages = new ArrayList<>();
+        private int lineCount;
+        private int incompleteLine = -1;
+        private long seq;
+    }
+
+    /**
+     * Writes a task file one task at a time, so that the tasks never need to be gathered in memory.
+     * A task not decoded yet from a lazily loaded text file is copied over as the line it came from.
+     */
+    static class SnapshotWriter implements TaskStore.TaskVisitor, Closeable {
+        private final OutputStream out;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder line = new StringBuilder();
+        private final byte[] prefix = new byte[RecordChecksum.PREFIX_LENGTH];
+        private ByteBuffer record = ByteBuffer.allocate(LINE_BUFFER_CHARS);
+
+        /**
+         * Creates the file and writes the journal sequence header.
+         *
+         * @param path The file to write.
+         * @param seq The last journal sequence number reflected in the tasks to be written.
+         * @throws IOException If the file cannot be written.
+         */
+        SnapshotWriter(Path path, long seq) throws IOException {
+            out = new BufferedOutputStream(Files.newOutputStream(path));
+            try {
+                out.write((SEQ_HEADER_PREFIX + seq).getBytes(StandardCharsets.UTF_8));
+                out.write(LINE_SEPARATOR);
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void visitTask(Task task) throws IOException {
+            line.setLength(0);
+            record = encode(encoder, task.appendFileFormat(line), record);
+            writeLine(record.array(), record.position());
+        }
+
+        @Override
+        public void visitUndecoded(TaskSource source, int row) throws IOException {
+            if (source instanceof LineIndexedTaskSource) {
+                byte[] bytes = ((LineIndexedTaskSource) source).readLine(row);
+                writeLine(bytes, bytes.length);
+            } else {
+                visitTask(source.loadTask(row));
+            }
+        }
+
+        private void writeLine(byte[] bytes, int length) throws IOException {
+            RecordChecksum.writePrefix(prefix, bytes, 0, length);
+            out.write(prefix);
+            out.write(bytes, 0, length);
+            out.write(LINE_SEPARATOR);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes the tasks to the given file, preceded by the journal sequence header.
+     *
+     * @param tasks The tasks to write.
+     * @param seq The last journal sequence number reflected in the tasks.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(List<Task> tasks, long seq, Path path) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        try (SnapshotWriter writer = new SnapshotWriter(path, seq)) {
+            for (Task task : tasks) {
+                writer.visitTask(task);
+            }
+        }
+    }
+
+    /**
+     * Encodes the line as UTF-8 into the buffer, replacing it with a larger one if it does not fit.
+     *
+     * @return The buffer holding the encoded line between its start and position.
+     */
+    private static ByteBuffer encode(CharsetEncoder encoder, CharSequence line, ByteBuffer buffer) {
+        ByteBuffer target = buffer;
+        while (true) {
+            target.clear();
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(line), target, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(target);
+            }
+            if (!result.isOverflow()) {
+                return target;
+            }
+            target = ByteBuffer.allocate(target.capacity() * 2);
+        }
+    }
+
+    /**
+     * Writes the tasks one per line, formatting every line into the same reused buffer.
+     *
+     * @param writer The writer to write to.
+     * @param tasks The tasks to write.
+     * @throws IOException If the tasks cannot be written.
+     */
+    static void writeTasks(Writer writer, List<Task> tasks) throws IOException {
+        StringBuilder line = new StringBuilder();
+        char[] chars = new char[LINE_BUFFER_CHARS];
+        for (Task task : tasks) {
+            line.setLength(0);
+            task.appendFileFormat(line).append(System.lineSeparator());
+            if (line.length() > chars.length) {
+                chars = new char[line.length() * 2];
+            }
+            line.getChars(0, line.length(), chars, 0);
+            writer.write(chars, 0, line.length());
+        }
+    }
+
+    /**
+     * Reads the tasks in the given text file into the list, skipping corrupted lines with a warning.
+     *
+     * @param path The file to read.
+     * @param tasks The list to add the tasks to.
+     * @return The last journal sequence number folded into the file, or 0 if it has no header.
+     * @throws IOException If the file cannot be read.
+     */
+    static long read(Path path, ArrayList<Task> tasks) throws IOException {
+        assert tasks != null : "Tasks list cannot be null";
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] boundaries = findChunkBoundaries(channel);
+            List<ParsedChunk> chunks = parseChunks(channel, boundaries);
+
+            int firstLine = 1;
+            for (ParsedChunk chunk : chunks) {
+                for (int i = 0; i < chunk.warningLines.size(); i++) {
+                    System.out.println("Warning: Skipping corrupted task on line "
+                            + (firstLine + chunk.warningLines.get(i)) + " - " + chunk.warningMessages.get(i));
+                }
+                if (chunk.incompleteLine != -1) {
+                    System.out.println("Warning: Discarding incomplete task on line "
+                            + (firstLine + chunk.incompleteLine));
+                }
+                tasks.addAll(chunk.tasks);
+                firstLine += chunk.lineCount;
+            }
+            return chunks.isEmpty() ? 0 : chunks.get(0).seq;
+        }
+    }
+
+    /**
+     * Splits the file into byte ranges that each start at the beginning of a line.
+     *
+     * @param channel The open file.
+     * @return The start offset of every range followed by the file size.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < PARALLEL_THRESHOLD_BYTES) {
+            return new long[] {0, size};
+        }
+        int targetChunks = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+        long chunkBytes = Math.max(MIN_CHUNK_BYTES, size / targetChunks);
+        ArrayList<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        long next = chunkBytes;
+        while (next < size) {
+            long lineStart = findNextLineStart(channel, next);
+            if (lineStart >= size) {
+                break;
+            }
+            starts.add(lineStart);
+            next = lineStart + chunkBytes;
+        }
+        long[] boundaries = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            boundaries[i] = starts.get(i);
+        }
+        boundaries[starts.size()] = size;
+        return boundaries;
+    }
+
+    private static long findNextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        long offset = position;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    private static List<ParsedChunk> parseChunks(FileChannel channel, long[] boundaries) throws IOException {
+        int chunkCount = boundaries.length - 1;
+        if (chunkCount == 1) {
+            return List.of(parseChunk(channel, boundaries[0], boundaries[1]));
+        }
+        ArrayList<Callable<ParsedChunk>> jobs = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            long start = boundaries[i];
+            long end = boundaries[i + 1];
+            jobs.add(() -> parseChunk(channel, start, end));
+        }
+        ArrayList<ParsedChunk> chunks = new ArrayList<>();
+        try {
+            for (Future<ParsedChunk> future : ForkJoinPool.commonPool().invokeAll(jobs)) {
+                chunks.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading tasks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return chunks;
+    }
+
+    /**
+     * Parses the lines in one byte range of the file.
+     * Line numbers in the result are relative to the start of the range.
+     */
+    private static ParsedChunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+        ParsedChunk chunk = new ParsedChunk();
+        if (end <= start) {
+            return chunk;
+        }
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CharBuffer chars = StandardCharsets.UTF_8.decode(bytes.duplicate());
+        // Walk the bytes and the decoded chars side by side: checksums cover the bytes, tasks are parsed from chars
+        int byteStart = 0;
+        int charStart = 0;
+        int byteLength = bytes.limit();
+        int charLength = chars.length();
+        while (byteStart < byteLength) {
+            int byteEnd = byteStart;
+            while (byteEnd < byteLength && bytes.get(byteEnd) != '\n') {
+                byteEnd++;
+            }
+            int charEnd = charStart;
+            while (charEnd < charLength && chars.charAt(charEnd) != '\n') {
+                charEnd++;
+            }
+            boolean isTerminated = byteEnd < byteLength;
+            int byteContentEnd = byteEnd > byteStart && bytes.get(byteEnd - 1) == '\r' ? byteEnd - 1 : byteEnd;
+            int charContentEnd = charEnd > charStart && chars.charAt(charEnd - 1) == '\r' ? charEnd - 1 : charEnd;
+            parseLine(bytes, byteStart, byteContentEnd, chars, charStart, charContentEnd, isTerminated,
+                    start == 0, chunk);
+            byteStart = byteEnd + 1;
+            charStart = charEnd + 1;
+        }
+        return chunk;
+    }
+
+    private static void parseLine(ByteBuffer bytes, int byteStart, int byteEnd, CharBuffer chars, int start, int end,
+            boolean isTerminated, boolean isFirstChunk, ParsedChunk chunk) {
+        int lineIndex = chunk.lineCount;
+        chunk.lineCount++;
+        if (isFirstChunk && lineIndex == 0 && isSeqHeader(chars, start, end)) {
+            String line = chars.subSequence(start, end).toString();
+            try {
+                chunk.seq = Long.parseLong(line.substring(SEQ_HEADER_PREFIX.length()).trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Warning: Ignoring corrupted journal header - " + line);
+            }
+            return;
+        }
+        int taskStart = start;
+        try {
+            if (RecordChecksum.hasPrefix(bytes, byteStart, byteEnd)) {
+                if (!RecordChecksum.isIntact(bytes, byteStart, byteEnd)) {
+                    throw new ShengException("Checksum mismatch!");
+                }
+                taskStart += RecordChecksum.PREFIX_LENGTH;
+            }
+            chunk.tasks.add(TaskLineScanner.parse(chars, taskStart, end));
+        } catch (ShengException e) {
+            // Only the very last line of the file can be unterminated, which is where an interrupted write stops
+            if (!isTerminated) {
+                chunk.incompleteLine = lineIndex;
+                return;
+            }
+            chunk.warningLines.add(lineIndex);
+            chunk.warningMessages.add(e.getMessage());
+        }
+    }
+
+    private static boolean isSeqHeader(CharBuffer chars, int start, int end) {
+        if (end - start < SEQ_HEADER_PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < SEQ_HEADER_PREFIX.length(); i++) {
+            if (chars.charAt(start + i) != SEQ_HEADER_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
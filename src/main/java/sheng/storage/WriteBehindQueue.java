@@ -0,0 +1,176 @@
+package sheng.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects records on the caller's thread and writes them on a single background thread.
+ * Records arriving close together are coalesced into one batch, so a burst of mutations
+ * costs one write and one sync instead of one per record.
+ * No record waits longer than the configured maximum latency before its batch is written.
+ *
+ * <p>Records only make sense in order, so once a batch fails to be written the queue stops: the
+ * failed batch and everything after it stay unwritten, and every later enqueue or flush throws
+ * the error instead of writing records that would be replayed against changes that were lost.
+ */
+class WriteBehindQueue {
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private final BatchWriter batchWriter;
+    private final long maxLatencyNanos;
+    private final Thread writerThread;
+    private ArrayList<byte[]> pending = new ArrayList<>();
+    private long oldestPendingNanos;
+    private long enqueuedCount;
+    private long writtenCount;
+    private boolean isFlushRequested;
+    private boolean isClosed;
+    private IOException failure;
+
+    /**
+     * Functional interface for writing one batch of records durably.
+     */
+    @FunctionalInterface
+    interface BatchWriter {
+        void write(List<byte[]> batch) throws IOException;
+    }
+
+    /**
+     * Constructs a WriteBehindQueue and starts its writer thread.
+     *
+     * @param batchWriter Writes each coalesced batch.
+     * @param maxLatencyMillis The longest time a record may wait before it is written.
+     */
+    WriteBehindQueue(BatchWriter batchWriter, long maxLatencyMillis) {
+        assert batchWriter != null : "Batch writer cannot be null";
+        assert maxLatencyMillis >= 0 : "Maximum latency cannot be negative";
+        this.batchWriter = batchWriter;
+        this.maxLatencyNanos = maxLatencyMillis * NANOS_PER_MILLI;
+        this.writerThread = new Thread(this::runWriter, "sheng-write-behind");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a record to be written by the writer thread.
+     *
+     * @param record The bytes of the record.
+     * @throws IOException If the queue has been closed, or stopped after a batch failed to be written.
+     */
+    synchronized void enqueue(byte[] record) throws IOException {
+        throwIfFailed();
+        if (isClosed) {
+            throw new IOException("Write-behind queue is closed");
+        }
+        if (pending.isEmpty()) {
+            oldestPendingNanos = System.nanoTime();
+        }
+        pending.add(record);
+        enqueuedCount++;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until every record queued before this call has been written.
+     *
+     * @throws IOException If a batch failed to be written, now or earlier.
+     */
+    synchronized void flush() throws IOException {
+        long target = enqueuedCount;
+        isFlushRequested = true;
+        notifyAll();
+        boolean isInterrupted = false;
+        while (writtenCount < target && failure == null && writerThread.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Writes every queued record and stops the writer thread.
+     *
+     * @throws IOException If a batch failed to be written, now or earlier.
+     */
+    void close() throws IOException {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+        }
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                isClosed = true;
+                notifyAll();
+            }
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            ArrayList<byte[]> batch;
+            long batchEnd;
+            synchronized (this) {
+                if (!awaitBatch()) {
+                    return;
+                }
+                batch = pending;
+                batchEnd = enqueuedCount;
+                pending = new ArrayList<>();
+                isFlushRequested = false;
+            }
+            try {
+                batchWriter.write(batch);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                writtenCount = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    private void throwIfFailed() throws IOException {
+        if (failure != null) {
+            throw new IOException("Saving stopped after an earlier error: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Waits until the pending batch is due, either because its oldest record has waited
+     * the maximum latency or because a flush was requested.
+     *
+     * @return False if the queue is closed and there is nothing left to write.
+     */
+    private boolean awaitBatch() {
+        try {
+            while (pending.isEmpty()) {
+                if (isClosed) {
+                    return false;
+                }
+                wait();
+            }
+            long remainingNanos = oldestPendingNanos + maxLatencyNanos - System.nanoTime();
+            while (!isFlushRequested && !isClosed && remainingNanos > 0) {
+                wait(remainingNanos / NANOS_PER_MILLI, (int) (remainingNanos % NANOS_PER_MILLI));
+                remainingNanos = oldestPendingNanos + maxLatencyNanos - System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            // Write what has been collected so far rather than lose it
+        }
+        return true;
+    }
+}
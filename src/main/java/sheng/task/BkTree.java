@@ -0,0 +1,104 @@
+package sheng.task;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A BK-tree of words under the Levenshtein distance, for finding every word within a given
+ * number of edits of a query without comparing the query to every word.
+ * Each child of a node is keyed by its distance to the node, and by the triangle inequality
+ * only children whose key is within the bound of the query's distance to the node can match.
+ * Words are never removed, so callers are expected to ignore words they no longer use.
+ */
+class BkTree {
+    private Node root;
+
+    /**
+     * Adds a word to the tree if it is not in it yet.
+     *
+     * @param word The word to add.
+     */
+    void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Passes every word within the given distance of the query to the consumer, with its distance.
+     *
+     * @param query The word to search for.
+     * @param maxDistance The largest number of edits allowed.
+     * @param consumer The consumer of matching words and their distances.
+     */
+    void search(String query, int maxDistance, ObjIntConsumer<String> consumer) {
+        if (root == null) {
+            return;
+        }
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(query, node.word);
+            if (distance <= maxDistance) {
+                consumer.accept(node.word, distance);
+            }
+            for (int key = Math.max(1, distance - maxDistance); key <= distance + maxDistance; key++) {
+                Node child = node.children.get(key);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the Levenshtein distance between two words.
+     *
+     * @param first The first word.
+     * @param second The second word.
+     * @return The number of single-character insertions, deletions and substitutions between the words.
+     */
+    static int distance(String first, String second) {
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int substitution = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+
+    private static class Node {
+        private final String word;
+        private final HashMap<Integer, Node> children = new HashMap<>();
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+}
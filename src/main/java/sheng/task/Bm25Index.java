@@ -0,0 +1,126 @@
+package sheng.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Ranks tasks against a query with the Okapi BM25 score over the lower-cased words of their descriptions.
+ * The index keeps how often each word appears in each task and how many words each task has,
+ * updating both as tasks are added and deleted, so a search only visits the tasks containing a
+ * query word. The best tasks are picked with a heap bounded by the limit instead of sorting every match.
+ */
+class Bm25Index implements TaskIndex {
+    /** How quickly repeating a word stops adding to the score. */
+    private static final double K1 = 1.2;
+    /** How strongly the score is normalised by description length. */
+    private static final double B = 0.75;
+
+    private final HashMap<String, HashMap<Task, Integer>> frequenciesByWord = new HashMap<>();
+    private final HashMap<Task, Integer> wordCounts = new HashMap<>();
+    private long totalWordCount;
+
+    /**
+     * Constructs an index over the given tasks.
+     *
+     * @param tasks The tasks to index, in list order.
+     */
+    Bm25Index(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        List<String> words = KeywordIndex.splitFoldedWords(task.getDescription());
+        for (String word : words) {
+            frequenciesByWord.computeIfAbsent(word, w -> new HashMap<>()).merge(task, 1, Integer::sum);
+        }
+        wordCounts.put(task, words.size());
+        totalWordCount += words.size();
+    }
+
+    @Override
+    public void remove(Task task) {
+        Integer wordCount = wordCounts.remove(task);
+        if (wordCount == null) {
+            return;
+        }
+        totalWordCount -= wordCount;
+        for (String word : KeywordIndex.splitFoldedWords(task.getDescription())) {
+            HashMap<Task, Integer> frequencies = frequenciesByWord.get(word);
+            if (frequencies == null) {
+                continue;
+            }
+            frequencies.remove(task);
+            if (frequencies.isEmpty()) {
+                frequenciesByWord.remove(word);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        frequenciesByWord.clear();
+        wordCounts.clear();
+        totalWordCount = 0;
+    }
+
+    /**
+     * Returns the tasks that best match the query, best first.
+     * Tasks with equal scores are kept in list order.
+     *
+     * @param query The words to search for.
+     * @param limit The largest number of tasks to return.
+     * @return Up to {@code limit} tasks containing at least one query word.
+     */
+    ArrayList<Task> search(String query, int limit) {
+        assert limit > 0 : "Search limit must be positive";
+        int taskCount = wordCounts.size();
+        if (taskCount == 0) {
+            return new ArrayList<>();
+        }
+        double averageWordCount = (double) totalWordCount / taskCount;
+        HashMap<Task, Double> scores = new HashMap<>();
+        for (String word : new LinkedHashSet<>(KeywordIndex.splitFoldedWords(query))) {
+            HashMap<Task, Integer> frequencies = frequenciesByWord.get(word);
+            if (frequencies == null) {
+                continue;
+            }
+            int matchCount = frequencies.size();
+            double idf = Math.log(1 + (taskCount - matchCount + 0.5) / (matchCount + 0.5));
+            for (Map.Entry<Task, Integer> entry : frequencies.entrySet()) {
+                int frequency = entry.getValue();
+                double lengthRatio = wordCounts.get(entry.getKey()) / averageWordCount;
+                double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+                scores.merge(entry.getKey(), score, Double::sum);
+            }
+        }
+
+        Comparator<Map.Entry<Task, Double>> ranking = Map.Entry.<Task, Double>comparingByValue().reversed()
+                .thenComparingLong(entry -> entry.getKey().getId());
+        // The head of the heap is the worst of the best tasks so far, ready to be replaced
+        PriorityQueue<Map.Entry<Task, Double>> best = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Task, Double> entry : scores.entrySet()) {
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (ranking.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        ArrayList<Task> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().getKey());
+        }
+        // The heap hands out the worst task first
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,225 @@
+package sheng.task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A {@link TaskStore} that keeps its tasks in columns instead of as task objects: a byte for the
+ * type of each task, a bit for whether it is done, its times as minutes since the epoch, and its
+ * description packed into a {@link DescriptionArena}. A task object is only built when a task is
+ * asked for, as a view of its columns, so a large list costs a few bytes per task plus its text.
+ *
+ * <p>Views are not kept, so two views of one task are different objects that are equal by ID,
+ * and changing a view does not change the store. A task is marked through
+ * {@link #setDone(int, boolean)} instead. Times are kept to the minute, as in the task file.
+ *
+ * <p>The descriptions can also be kept off the heap, so that even a list of millions of tasks
+ * leaves the garbage collector only the columns to look after. A description is then only
+ * decoded into a String when a view of its task is built.
+ */
+public class ColumnarTaskStore extends TaskStore {
+    private static final byte EMPTY = 0;
+    private static final byte TODO = 1;
+    private static final byte DEADLINE = 2;
+    private static final byte EVENT = 3;
+    private static final int MIN_DEAD_BYTES_TO_COMPACT = 4096;
+
+    // Set up by allocateSlots, so that clearing the store starts them afresh
+    private byte[] types;
+    private BitSet doneFlags;
+    private long[] firstMinutes;
+    private long[] secondMinutes;
+    private long[] descriptionPositions;
+    private int[] descriptionLengths;
+    private DescriptionArena descriptions;
+    private long deadBytes;
+    private boolean isOffHeap;
+
+    /**
+     * Constructs a ColumnarTaskStore holding the given tasks, giving an ID to any task that has none yet.
+     * The tasks are copied into the columns, so the store does not keep the task objects.
+     *
+     * @param tasks The tasks to store, in list order.
+     */
+    public ColumnarTaskStore(List<Task> tasks) {
+        this(tasks, false);
+    }
+
+    /**
+     * Constructs a ColumnarTaskStore holding the given tasks, with the descriptions either on or off the heap.
+     *
+     * @param tasks The tasks to store, in list order.
+     * @param isOffHeap Whether to keep the descriptions in direct buffers outside the heap.
+     */
+    public ColumnarTaskStore(List<Task> tasks, boolean isOffHeap) {
+        // The mode must be known before the slots, and with them the arena, are allocated
+        this.isOffHeap = isOffHeap;
+        fill(tasks);
+    }
+
+    /**
+     * Constructs a ColumnarTaskStore holding the tasks of another store, which is left empty.
+     * Tasks the other store has not decoded yet are decoded one at a time straight into the columns,
+     * so a lazily loaded list can be moved into columns without ever holding all its task objects.
+     *
+     * @param tasks The store to take the tasks from, in list order.
+     * @param isOffHeap Whether to keep the descriptions in direct buffers outside the heap.
+     */
+    public ColumnarTaskStore(TaskStore tasks, boolean isOffHeap) {
+        this.isOffHeap = isOffHeap;
+        drain(tasks);
+    }
+
+    /**
+     * Returns whether the descriptions are kept outside the heap.
+     *
+     * @return True if the descriptions are off the heap.
+     */
+    public boolean isOffHeap() {
+        return isOffHeap;
+    }
+
+    /**
+     * Replaces each task with a new view of its columns, as it may have been marked since it was found.
+     */
+    @Override
+    void refresh(List<Task> found) {
+        for (int i = 0; i < found.size(); i++) {
+            int slot = findSlotOfId(found.get(i).getId());
+            assert slot >= 0 : "Task is no longer in the store";
+            found.set(i, loadSlot(slot));
+        }
+    }
+
+    @Override
+    Task loadSlot(int slot) {
+        String description = descriptions.read(descriptionPositions[slot], descriptionLengths[slot]);
+        Task task;
+        switch (types[slot]) {
+        case DEADLINE:
+            task = new Deadline(description, toDateTime(firstMinutes[slot]));
+            break;
+        case EVENT:
+            task = new Event(description, toDateTime(firstMinutes[slot]), toDateTime(secondMinutes[slot]));
+            break;
+        default:
+            assert types[slot] == TODO : "Slot holds no task";
+            task = new Todo(description);
+            break;
+        }
+        if (doneFlags.get(slot)) {
+            task.markAsDone();
+            task.markClean();
+        }
+        task.setId(getSlotId(slot));
+        return task;
+    }
+
+    @Override
+    boolean isEventSlot(int slot) {
+        return types[slot] == EVENT;
+    }
+
+    @Override
+    boolean isSlotDecoded(int slot) {
+        return true;
+    }
+
+    @Override
+    Task setSlotDone(int slot, boolean isDone) {
+        doneFlags.set(slot, isDone);
+        return loadSlot(slot);
+    }
+
+    @Override
+    void storeSlot(int slot, Task task) {
+        if (types[slot] != EMPTY) {
+            deadBytes += descriptionLengths[slot];
+        }
+        if (task instanceof Deadline) {
+            types[slot] = DEADLINE;
+            firstMinutes[slot] = toMinutes(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            types[slot] = EVENT;
+            firstMinutes[slot] = toMinutes(((Event) task).getFrom());
+            secondMinutes[slot] = toMinutes(((Event) task).getTo());
+        } else {
+            assert task instanceof Todo : "Unknown task type: " + task.getClass();
+            types[slot] = TODO;
+        }
+        doneFlags.set(slot, task.isDone());
+        byte[] encoded = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        descriptionPositions[slot] = descriptions.append(encoded);
+        descriptionLengths[slot] = encoded.length;
+    }
+
+    @Override
+    void clearSlot(int slot) {
+        types[slot] = EMPTY;
+        doneFlags.clear(slot);
+        deadBytes += descriptionLengths[slot];
+        if (deadBytes >= MIN_DEAD_BYTES_TO_COMPACT && deadBytes > descriptions.getUsedBytes() / 2) {
+            compactDescriptions();
+        }
+    }
+
+    @Override
+    void moveSlot(int from, int to) {
+        types[to] = types[from];
+        doneFlags.set(to, doneFlags.get(from));
+        firstMinutes[to] = firstMinutes[from];
+        secondMinutes[to] = secondMinutes[from];
+        descriptionPositions[to] = descriptionPositions[from];
+        descriptionLengths[to] = descriptionLengths[from];
+        types[from] = EMPTY;
+        doneFlags.clear(from);
+    }
+
+    @Override
+    void allocateSlots(int capacity) {
+        types = new byte[capacity];
+        doneFlags = new BitSet(capacity);
+        firstMinutes = new long[capacity];
+        secondMinutes = new long[capacity];
+        descriptionPositions = new long[capacity];
+        descriptionLengths = new int[capacity];
+        descriptions = new DescriptionArena(isOffHeap);
+        deadBytes = 0;
+    }
+
+    @Override
+    void growSlots(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        firstMinutes = Arrays.copyOf(firstMinutes, capacity);
+        secondMinutes = Arrays.copyOf(secondMinutes, capacity);
+        descriptionPositions = Arrays.copyOf(descriptionPositions, capacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+    }
+
+    /**
+     * Copies the descriptions of the tasks still in the store into a new arena, dropping those of deleted tasks.
+     */
+    private void compactDescriptions() {
+        DescriptionArena compacted = new DescriptionArena(isOffHeap);
+        for (int slot = 0; slot < types.length; slot++) {
+            if (types[slot] != EMPTY) {
+                descriptionPositions[slot] =
+                        compacted.appendFrom(descriptions, descriptionPositions[slot], descriptionLengths[slot]);
+            }
+        }
+        descriptions = compacted;
+        deadBytes = 0;
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime toDateTime(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+}
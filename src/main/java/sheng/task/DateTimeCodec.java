@@ -0,0 +1,161 @@
+package sheng.task;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads and writes the date and time patterns used by tasks digit by digit instead of going
+ * through {@link DateTimeFormatter} every time.
+ * Tasks are stored as {@code yyyy-MM-dd HHmm} and shown as {@code MMM dd yyyy, hh:mm a}.
+ * Anything outside the plainly valid range falls back to the formatters, so the results are
+ * always the same as theirs.
+ */
+public final class DateTimeCodec {
+    private static final DateTimeFormatter STORAGE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, hh:mm a");
+    private static final int STORAGE_LENGTH = 15;
+    private static final int MAX_SAFE_DAY = 28;
+    private static final int MIN_FAST_YEAR = 1;
+    private static final int MAX_FAST_YEAR = 9999;
+    private static final String[] MONTH_NAMES = new String[12];
+    private static final String AM;
+    private static final String PM;
+
+    static {
+        // Take the localized text from the formatter itself so the output matches it exactly
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
+        for (Month month : Month.values()) {
+            MONTH_NAMES[month.ordinal()] = monthFormatter.format(month);
+        }
+        DateTimeFormatter amPmFormatter = DateTimeFormatter.ofPattern("a");
+        AM = amPmFormatter.format(LocalTime.MIDNIGHT);
+        PM = amPmFormatter.format(LocalTime.NOON);
+    }
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd HHmm} date and time.
+     *
+     * @param text The text to parse.
+     * @return The parsed date and time.
+     * @throws DateTimeParseException If the text is not a valid date and time.
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd HHmm} date and time from part of the text.
+     *
+     * @param text The text holding the date and time.
+     * @param start The index of the first character to parse.
+     * @param end The index after the last character to parse.
+     * @return The parsed date and time.
+     * @throws DateTimeParseException If the characters are not a valid date and time.
+     */
+    public static LocalDateTime parse(CharSequence text, int start, int end) {
+        assert text != null : "Date and time to parse cannot be null";
+        if (end - start == STORAGE_LENGTH && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-'
+                && text.charAt(start + 10) == ' ') {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            int hour = digits(text, start + 11, 2);
+            int minute = digits(text, start + 13, 2);
+            if (year >= MIN_FAST_YEAR && month >= 1 && month <= 12 && day >= 1 && day <= MAX_SAFE_DAY
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute);
+            }
+        }
+        // Leave day clamping, hour 24 and every error message to the formatter
+        return LocalDateTime.parse(text.subSequence(start, end), STORAGE_FORMATTER);
+    }
+
+    /**
+     * Appends the date and time in the {@code yyyy-MM-dd HHmm} storage pattern.
+     *
+     * @param builder The builder to append to.
+     * @param dateTime The date and time to write.
+     * @return The builder.
+     */
+    public static StringBuilder appendStorageFormat(StringBuilder builder, LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < MIN_FAST_YEAR || year > MAX_FAST_YEAR) {
+            STORAGE_FORMATTER.formatTo(dateTime, builder);
+            return builder;
+        }
+        appendDigits(builder, year, 4).append('-');
+        appendDigits(builder, dateTime.getMonthValue(), 2).append('-');
+        appendDigits(builder, dateTime.getDayOfMonth(), 2).append(' ');
+        appendDigits(builder, dateTime.getHour(), 2);
+        return appendDigits(builder, dateTime.getMinute(), 2);
+    }
+
+    /**
+     * Appends the date and time in the {@code MMM dd yyyy, hh:mm a} display pattern.
+     *
+     * @param builder The builder to append to.
+     * @param dateTime The date and time to write.
+     * @return The builder.
+     */
+    public static StringBuilder appendDisplayFormat(StringBuilder builder, LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < MIN_FAST_YEAR || year > MAX_FAST_YEAR) {
+            DISPLAY_FORMATTER.formatTo(dateTime, builder);
+            return builder;
+        }
+        int hour = dateTime.getHour();
+        int clockHour = hour % 12 == 0 ? 12 : hour % 12;
+        builder.append(MONTH_NAMES[dateTime.getMonthValue() - 1]).append(' ');
+        appendDigits(builder, dateTime.getDayOfMonth(), 2).append(' ');
+        appendDigits(builder, year, 4).append(", ");
+        appendDigits(builder, clockHour, 2).append(':');
+        appendDigits(builder, dateTime.getMinute(), 2).append(' ');
+        return builder.append(hour < 12 ? AM : PM);
+    }
+
+    /**
+     * Formats the date and time in the {@code yyyy-MM-dd HHmm} storage pattern.
+     *
+     * @param dateTime The date and time to format.
+     * @return The formatted date and time.
+     */
+    public static String formatStorage(LocalDateTime dateTime) {
+        return appendStorageFormat(new StringBuilder(STORAGE_LENGTH), dateTime).toString();
+    }
+
+    /**
+     * Formats the date and time in the {@code MMM dd yyyy, hh:mm a} display pattern.
+     *
+     * @param dateTime The date and time to format.
+     * @return The formatted date and time.
+     */
+    public static String formatDisplay(LocalDateTime dateTime) {
+        return appendDisplayFormat(new StringBuilder(), dateTime).toString();
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static StringBuilder appendDigits(StringBuilder builder, int value, int width) {
+        assert width == 2 || width == 4 : "Only two and four digit fields are written";
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+        return builder;
+    }
+}
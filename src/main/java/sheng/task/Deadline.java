@@ -1,7 +1,6 @@
 package sheng.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 import sheng.exception.ShengException;
@@ -11,8 +10,6 @@ import sheng.exception.ShengException;
  */
 public class Deadline extends Task {
     protected LocalDateTime by;
-    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-    private static final DateTimeFormatter OUTPUT_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, hh:mm a");
 
     /**
      * Constructs a Deadline task.
@@ -24,7 +21,7 @@ public class Deadline extends Task {
     public Deadline(String description, String by) throws ShengException {
         super(description);
         try {
-            this.by = LocalDateTime.parse(by, INPUT_FORMATTER);
+            this.by = DateTimeCodec.parse(by);
         } catch (DateTimeParseException e) {
             throw new ShengException("Invalid date format! Please use: yyyy-MM-dd HHmm (e.g. 2024-02-14 1400)");
         }
@@ -35,13 +32,19 @@ public class Deadline extends Task {
         this.by = by;
     }
 
+    public LocalDateTime getBy() {
+        return by;
+    }
+
     @Override
     public String toString() {
-        return "[D]" + super.toString() + " (by: " + by.format(OUTPUT_FORMATTER) + ")";
+        StringBuilder builder = new StringBuilder("[D]").append(super.toString()).append(" (by: ");
+        return DateTimeCodec.appendDisplayFormat(builder, by).append(')').toString();
     }
 
     @Override
-    public String toFileFormat() {
-        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + by.format(INPUT_FORMATTER);
+    public StringBuilder appendFileFormat(StringBuilder builder) {
+        builder.append("D | ").append(isDone ? '1' : '0').append(" | ").append(description).append(" | ");
+        return DateTimeCodec.appendStorageFormat(builder, by);
     }
 }
@@ -0,0 +1,82 @@
+package sheng.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps the deadlines in a list sorted by when they are due, so the deadlines due in a window
+ * are found in time logarithmic in the number of deadlines plus the number found.
+ * Deadlines due at the same time are kept in list order.
+ */
+class DeadlineIndex implements TaskIndex {
+    private final TreeMap<LocalDateTime, LinkedHashSet<Deadline>> deadlinesByDue = new TreeMap<>();
+
+    /**
+     * Constructs an index over the deadlines among the given tasks.
+     *
+     * @param tasks The tasks to index, in list order.
+     */
+    DeadlineIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            deadlinesByDue.computeIfAbsent(deadline.getBy(), by -> new LinkedHashSet<>()).add(deadline);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (!(task instanceof Deadline)) {
+            return;
+        }
+        LocalDateTime by = ((Deadline) task).getBy();
+        LinkedHashSet<Deadline> deadlines = deadlinesByDue.get(by);
+        if (deadlines == null) {
+            return;
+        }
+        deadlines.remove(task);
+        if (deadlines.isEmpty()) {
+            deadlinesByDue.remove(by);
+        }
+    }
+
+    @Override
+    public void clear() {
+        deadlinesByDue.clear();
+    }
+
+    /**
+     * Finds the deadlines due strictly between the given times.
+     *
+     * @param after The time the deadlines must be due after, or null for no lower bound.
+     * @param before The time the deadlines must be due before, or null for no upper bound.
+     * @return The matching deadlines, earliest first, or none if the window is empty.
+     */
+    ArrayList<Task> findDue(LocalDateTime after, LocalDateTime before) {
+        if (after != null && before != null && !after.isBefore(before)) {
+            return new ArrayList<>();
+        }
+        NavigableMap<LocalDateTime, LinkedHashSet<Deadline>> window = deadlinesByDue;
+        if (after != null) {
+            window = window.tailMap(after, false);
+        }
+        if (before != null) {
+            window = window.headMap(before, false);
+        }
+        ArrayList<Task> result = new ArrayList<>();
+        for (LinkedHashSet<Deadline> deadlines : window.values()) {
+            result.addAll(deadlines);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+package sheng.task;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Packs task descriptions end to end into byte buffers as UTF-8, so that a description costs its
+ * bytes rather than a String object of its own. A description is found again by its position,
+ * which names the buffer and the offset in it, and how many bytes it has, both kept by the caller.
+ *
+ * <p>The buffers may be direct, in which case the descriptions live outside the heap and the
+ * garbage collector only ever sees the few buffer objects, however many descriptions there are.
+ * Buffers start small and double up to {@link #MAX_SEGMENT_SIZE}, so growing never copies what
+ * was already written.
+ *
+ * <p>Descriptions are never removed one by one; the caller copies the live ones into a new arena
+ * once enough of this one is unused.
+ */
+class DescriptionArena {
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    private static final int MAX_SEGMENT_SIZE = 1 << 20;
+
+    private final boolean isOffHeap;
+    private final ArrayList<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer current;
+    private long usedBytes;
+
+    /**
+     * Constructs an empty arena.
+     *
+     * @param isOffHeap Whether to keep the descriptions in direct buffers outside the heap.
+     */
+    DescriptionArena(boolean isOffHeap) {
+        this.isOffHeap = isOffHeap;
+    }
+
+    /**
+     * Appends an encoded description to the arena.
+     *
+     * @param encoded The description as UTF-8.
+     * @return The position of the description.
+     */
+    long append(byte[] encoded) {
+        long position = reserve(encoded.length);
+        current.put(encoded);
+        return position;
+    }
+
+    /**
+     * Appends a description copied from another arena, without decoding it.
+     *
+     * @param other The arena holding the description.
+     * @param position The position of the description in the other arena.
+     * @param byteCount How many bytes the description takes.
+     * @return The position of the description in this arena.
+     */
+    long appendFrom(DescriptionArena other, long position, int byteCount) {
+        ByteBuffer source = other.segments.get(segmentOf(position));
+        long newPosition = reserve(byteCount);
+        current.put(source.slice(offsetOf(position), byteCount));
+        return newPosition;
+    }
+
+    /**
+     * Decodes the description at the given position.
+     *
+     * @param position The position of the description.
+     * @param byteCount How many bytes the description takes.
+     * @return The description.
+     */
+    String read(long position, int byteCount) {
+        ByteBuffer segment = segments.get(segmentOf(position));
+        int offset = offsetOf(position);
+        if (segment.hasArray()) {
+            return new String(segment.array(), segment.arrayOffset() + offset, byteCount, StandardCharsets.UTF_8);
+        }
+        byte[] encoded = new byte[byteCount];
+        segment.get(offset, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns how many bytes of descriptions the arena holds.
+     *
+     * @return The number of bytes written to the arena.
+     */
+    long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Makes room for a description in the current buffer, starting a new buffer if it does not fit.
+     *
+     * @return The position the description will be written to.
+     */
+    private long reserve(int byteCount) {
+        if (current == null || current.remaining() < byteCount) {
+            int lastSize = current == null ? MIN_SEGMENT_SIZE / 2 : current.capacity();
+            // A description longer than a whole buffer gets a buffer of its own
+            int size = Math.max(byteCount, Math.min(MAX_SEGMENT_SIZE, lastSize * 2));
+            current = isOffHeap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+            segments.add(current);
+        }
+        usedBytes += byteCount;
+        return (long) (segments.size() - 1) << 32 | current.position();
+    }
+
+    private static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+}
@@ -1,7 +1,6 @@
 package sheng.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 import sheng.exception.ShengException;
@@ -12,8 +11,6 @@ import sheng.exception.ShengException;
 public class Event extends Task {
     protected LocalDateTime from;
     protected LocalDateTime to;
-    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-    private static final DateTimeFormatter OUTPUT_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, hh:mm a");
 
     /**
      * Constructs an Event task.
@@ -26,8 +23,8 @@ public class Event extends Task {
     public Event(String description, String from, String to) throws ShengException {
         super(description);
         try {
-            this.from = LocalDateTime.parse(from, INPUT_FORMATTER);
-            this.to = LocalDateTime.parse(to, INPUT_FORMATTER);
+            this.from = DateTimeCodec.parse(from);
+            this.to = DateTimeCodec.parse(to);
         } catch (DateTimeParseException e) {
             throw new ShengException("Invalid date format! Please use: yyyy-MM-dd HHmm (e.g. 2024-02-14 1400)");
         }
@@ -39,15 +36,25 @@ public class Event extends Task {
         this.to = to;
     }
 
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
     @Override
     public String toString() {
-        return "[E]" + super.toString() + " (from: " + from.format(OUTPUT_FORMATTER) 
-                + " to: " + to.format(OUTPUT_FORMATTER) + ")";
+        StringBuilder builder = new StringBuilder("[E]").append(super.toString()).append(" (from: ");
+        DateTimeCodec.appendDisplayFormat(builder, from).append(" to: ");
+        return DateTimeCodec.appendDisplayFormat(builder, to).append(')').toString();
     }
 
     @Override
-    public String toFileFormat() {
-        return "E | " + (isDone ? "1" : "0") + " | " + description + " | " 
-                + from.format(INPUT_FORMATTER) + " | " + to.format(INPUT_FORMATTER);
+    public StringBuilder appendFileFormat(StringBuilder builder) {
+        builder.append("E | ").append(isDone ? '1' : '0').append(" | ").append(description).append(" | ");
+        DateTimeCodec.appendStorageFormat(builder, from).append(" | ");
+        return DateTimeCodec.appendStorageFormat(builder, to);
     }
 }
@@ -0,0 +1,215 @@
+package sheng.task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the events in a list in an interval tree: an AVL tree ordered by start time in which
+ * every node also records the latest end time in its subtree. A subtree whose latest end is
+ * not after the start of a window cannot overlap it and is skipped, so finding the events that
+ * overlap a window takes time logarithmic in the number of events plus the number found.
+ * Events are treated as half-open, so an event ending when another starts does not overlap it.
+ */
+class EventIndex implements TaskIndex {
+    private static final Comparator<Event> ORDER =
+            Comparator.comparing(Event::getFrom).thenComparingLong(Event::getId);
+
+    private Node root;
+
+    /**
+     * Constructs an index over the events among the given tasks.
+     *
+     * @param tasks The tasks to index, in list order.
+     */
+    EventIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task instanceof Event) {
+            root = insert(root, (Event) task);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (task instanceof Event) {
+            root = delete(root, (Event) task);
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Finds the events that overlap the window from {@code start} to {@code end}.
+     *
+     * @param start The start of the window.
+     * @param end The end of the window.
+     * @return The overlapping events, by start time.
+     */
+    ArrayList<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        ArrayList<Task> result = new ArrayList<>();
+        collectOverlapping(root, start, end, result);
+        return result;
+    }
+
+    /**
+     * Finds the earliest time from which a window of the given length overlaps no event.
+     *
+     * @param earliest The earliest time the window may start.
+     * @param length The length of the window.
+     * @return The start of the first free window.
+     */
+    LocalDateTime findFreeSlot(LocalDateTime earliest, Duration length) {
+        LocalDateTime[] slotStart = {earliest};
+        findFreeSlot(root, length, slotStart);
+        return slotStart[0];
+    }
+
+    /**
+     * Walks the events in start order that end after the current slot start, pushing the slot past
+     * every event that begins before the slot would end.
+     *
+     * @return True once an event starts late enough to leave room for the slot before it.
+     */
+    private static boolean findFreeSlot(Node node, Duration length, LocalDateTime[] slotStart) {
+        if (node == null || !node.maxTo.isAfter(slotStart[0])) {
+            return false;
+        }
+        if (findFreeSlot(node.left, length, slotStart)) {
+            return true;
+        }
+        if (!node.event.getFrom().isBefore(slotStart[0].plus(length))) {
+            return true;
+        }
+        if (node.event.getTo().isAfter(slotStart[0])) {
+            slotStart[0] = node.event.getTo();
+        }
+        return findFreeSlot(node.right, length, slotStart);
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime start, LocalDateTime end, List<Task> result) {
+        if (node == null || !node.maxTo.isAfter(start)) {
+            return;
+        }
+        collectOverlapping(node.left, start, end, result);
+        if (!node.event.getFrom().isBefore(end)) {
+            // This event and everything to its right start too late
+            return;
+        }
+        if (node.event.getTo().isAfter(start)) {
+            result.add(node.event);
+        }
+        collectOverlapping(node.right, start, end, result);
+    }
+
+    private static Node insert(Node node, Event event) {
+        if (node == null) {
+            return new Node(event);
+        }
+        if (ORDER.compare(event, node.event) < 0) {
+            node.left = insert(node.left, event);
+        } else {
+            node.right = insert(node.right, event);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, Event event) {
+        if (node == null) {
+            return null;
+        }
+        int order = ORDER.compare(event, node.event);
+        if (order < 0) {
+            node.left = delete(node.left, event);
+        } else if (order > 0) {
+            node.right = delete(node.right, event);
+        } else if (node.left == null || node.right == null) {
+            return node.left != null ? node.left : node.right;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.event = successor.event;
+            node.right = delete(node.right, successor.event);
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        node.update();
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static class Node {
+        private Event event;
+        private Node left;
+        private Node right;
+        private int height;
+        private LocalDateTime maxTo;
+
+        Node(Event event) {
+            this.event = event;
+            update();
+        }
+
+        /**
+         * Recomputes the height and latest end time from the children.
+         */
+        void update() {
+            height = 1 + Math.max(height(left), height(right));
+            maxTo = event.getTo();
+            if (left != null && left.maxTo.isAfter(maxTo)) {
+                maxTo = left.maxTo;
+            }
+            if (right != null && right.maxTo.isAfter(maxTo)) {
+                maxTo = right.maxTo;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package sheng.task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds tasks whose words are within a few edits of the words of a keyword, ignoring case.
+ * The lower-cased words of all descriptions are kept in a {@link BkTree}, and each word maps
+ * to the tasks containing it. A word stays in the tree after its last task is deleted but is
+ * then ignored, so the tree only starts over when the whole list is cleared.
+ */
+class FuzzyIndex implements TaskIndex {
+    private final HashMap<String, LinkedHashSet<Task>> tasksByWord = new HashMap<>();
+    private BkTree words = new BkTree();
+
+    /**
+     * Constructs an index over the given tasks.
+     *
+     * @param tasks The tasks to index, in list order.
+     */
+    FuzzyIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns the number of edits a word of the given length may be away from a match.
+     * Short words must match exactly, as a single edit already turns them into unrelated words.
+     *
+     * @param length The length of the keyword word.
+     * @return The largest distance allowed.
+     */
+    static int getMaxDistance(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    @Override
+    public void add(Task task) {
+        for (String word : KeywordIndex.splitFoldedWords(task.getDescription())) {
+            LinkedHashSet<Task> wordTasks = tasksByWord.get(word);
+            if (wordTasks == null) {
+                wordTasks = new LinkedHashSet<>();
+                tasksByWord.put(word, wordTasks);
+                words.add(word);
+            }
+            wordTasks.add(task);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (String word : KeywordIndex.splitFoldedWords(task.getDescription())) {
+            LinkedHashSet<Task> wordTasks = tasksByWord.get(word);
+            if (wordTasks == null) {
+                continue;
+            }
+            wordTasks.remove(task);
+            if (wordTasks.isEmpty()) {
+                tasksByWord.remove(word);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        tasksByWord.clear();
+        words = new BkTree();
+    }
+
+    /**
+     * Finds the tasks that have, for every word of the keyword, a word within the allowed distance of it.
+     * The tasks are ranked by the sum of those distances, with ties kept in list order.
+     *
+     * @param keyword The keyword to search for.
+     * @return The matching tasks, closest first.
+     */
+    ArrayList<Task> find(String keyword) {
+        List<String> keywordWords = KeywordIndex.splitFoldedWords(keyword);
+        HashMap<Task, Integer> distances = null;
+        for (String keywordWord : keywordWords) {
+            // The closest distance of each task's words to this keyword word
+            HashMap<Task, Integer> wordDistances = new HashMap<>();
+            words.search(keywordWord, getMaxDistance(keywordWord.length()), (word, distance) -> {
+                LinkedHashSet<Task> wordTasks = tasksByWord.get(word);
+                if (wordTasks == null) {
+                    return;
+                }
+                for (Task task : wordTasks) {
+                    wordDistances.merge(task, distance, Math::min);
+                }
+            });
+            if (distances == null) {
+                distances = wordDistances;
+                continue;
+            }
+            HashMap<Task, Integer> combined = new HashMap<>();
+            for (Map.Entry<Task, Integer> entry : distances.entrySet()) {
+                Integer distance = wordDistances.get(entry.getKey());
+                if (distance != null) {
+                    combined.put(entry.getKey(), entry.getValue() + distance);
+                }
+            }
+            distances = combined;
+        }
+        if (distances == null) {
+            return new ArrayList<>();
+        }
+        HashMap<Task, Integer> totals = distances;
+        ArrayList<Task> result = new ArrayList<>(totals.keySet());
+        result.sort(Comparator.comparingInt((Task task) -> totals.get(task)).thenComparingLong(Task::getId));
+        return result;
+    }
+}
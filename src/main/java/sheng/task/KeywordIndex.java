@@ -0,0 +1,142 @@
+package sheng.task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps every word in the task descriptions to the tasks containing it, so that a search only
+ * looks at distinct words and the tasks that match instead of every task in the list.
+ * A word is a run of characters without whitespace. A keyword without whitespace can only
+ * appear inside a single word, so checking the words gives the same tasks as checking
+ * every description for the keyword.
+ */
+class KeywordIndex implements TaskIndex {
+    private final HashMap<String, LinkedHashSet<Task>> tasksByWord = new HashMap<>();
+
+    /**
+     * Constructs an index over the given tasks.
+     *
+     * @param tasks The tasks to index, in list order.
+     */
+    KeywordIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns whether the keyword can be looked up in the index.
+     * Keywords containing whitespace may span words and need a full scan instead.
+     *
+     * @param keyword The keyword to search for.
+     * @return True if the index can answer the search.
+     */
+    static boolean canSearch(String keyword) {
+        if (keyword.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.isWhitespace(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void add(Task task) {
+        for (String word : splitWords(task.getDescription())) {
+            tasksByWord.computeIfAbsent(word, w -> new LinkedHashSet<>()).add(task);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (String word : splitWords(task.getDescription())) {
+            LinkedHashSet<Task> wordTasks = tasksByWord.get(word);
+            if (wordTasks == null) {
+                continue;
+            }
+            wordTasks.remove(task);
+            if (wordTasks.isEmpty()) {
+                tasksByWord.remove(word);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        tasksByWord.clear();
+    }
+
+    /**
+     * Finds the tasks with a word that contains the keyword.
+     * A keyword that is a whole word is looked up directly, and the remaining words are
+     * only checked for containing it as a substring.
+     *
+     * @param keyword The keyword to search for, which must pass {@link #canSearch(String)}.
+     * @return The matching tasks, in list order.
+     */
+    ArrayList<Task> find(String keyword) {
+        assert canSearch(keyword) : "Keyword must be a single word";
+        ArrayList<LinkedHashSet<Task>> matches = new ArrayList<>();
+        LinkedHashSet<Task> exactMatches = tasksByWord.get(keyword);
+        if (exactMatches != null) {
+            matches.add(exactMatches);
+        }
+        for (Map.Entry<String, LinkedHashSet<Task>> entry : tasksByWord.entrySet()) {
+            String word = entry.getKey();
+            if (word.length() > keyword.length() && word.contains(keyword)) {
+                matches.add(entry.getValue());
+            }
+        }
+        if (matches.size() == 1) {
+            // Tasks are only ever appended, so each word's tasks are already in list order
+            return new ArrayList<>(matches.get(0));
+        }
+        LinkedHashSet<Task> merged = new LinkedHashSet<>();
+        for (LinkedHashSet<Task> wordTasks : matches) {
+            merged.addAll(wordTasks);
+        }
+        ArrayList<Task> result = new ArrayList<>(merged);
+        // IDs grow along the list, so sorting by ID restores list order
+        result.sort(Comparator.comparingLong(Task::getId));
+        return result;
+    }
+
+    /**
+     * Splits a description into its words, the runs of characters without whitespace.
+     *
+     * @param description The description to split.
+     * @return The words in the order they appear.
+     */
+    static List<String> splitWords(String description) {
+        ArrayList<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= description.length(); i++) {
+            boolean isWordChar = i < description.length() && !Character.isWhitespace(description.charAt(i));
+            if (isWordChar && start == -1) {
+                start = i;
+            } else if (!isWordChar && start != -1) {
+                words.add(description.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Splits a text into its words in lower case, for searches that ignore case.
+     *
+     * @param text The text to split.
+     * @return The lower-cased words in the order they appear.
+     */
+    static List<String> splitFoldedWords(String text) {
+        return splitWords(text.toLowerCase(Locale.ROOT));
+    }
+}
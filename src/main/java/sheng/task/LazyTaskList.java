@@ -0,0 +1,19 @@
+package sheng.task;
+
+/**
+ * A list of tasks that decodes each task from its {@link TaskSource} the first time it is accessed.
+ * Until then only the task's row in the source is kept, so creating the list costs nearly nothing
+ * and memory grows with the tasks that are actually used.
+ * A task from the source gets its row plus one as its ID, and a task added without an ID gets the
+ * next one after that, so IDs are known without decoding anything.
+ */
+public class LazyTaskList extends TaskStore {
+    /**
+     * Constructs a LazyTaskList over all tasks in the source.
+     *
+     * @param source The source to decode tasks from.
+     */
+    public LazyTaskList(TaskSource source) {
+        super(source);
+    }
+}
@@ -2,10 +2,16 @@ package sheng.task;
 
 /**
  * Represents a task with a description and completion status.
+ * A task also carries a stable ID, given to it when it first joins a {@link TaskList}, and a
+ * dirty flag telling storage whether it has changed since it was last saved.
+ * Tasks with the same ID are the same task, even when they are different objects, such as two
+ * views handed out by a {@link ColumnarTaskStore}.
  */
 public abstract class Task {
     protected String description;
     protected boolean isDone;
+    private long id;
+    private boolean isDirty;
 
     /**
      * Constructs a Task with the given description.
@@ -23,22 +29,88 @@ public abstract class Task {
         return (isDone ? "X" : " ");
     }
 
+    public boolean isDone() {
+        return isDone;
+    }
+
     public void markAsDone() {
         this.isDone = true;
+        this.isDirty = true;
     }
 
     public void markAsNotDone() {
         this.isDone = false;
+        this.isDirty = true;
+    }
+
+    /**
+     * Returns the stable ID of the task.
+     *
+     * @return The ID, or 0 if the task has not been given one yet.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gives the task its stable ID, either a new one from a {@link TaskList} or the one it was stored under.
+     *
+     * @param id The ID, which must be positive.
+     */
+    public void setId(long id) {
+        assert id > 0 : "Task ID must be positive";
+        this.id = id;
+    }
+
+    public boolean isDirty() {
+        return isDirty;
+    }
+
+    public void markDirty() {
+        this.isDirty = true;
+    }
+
+    public void markClean() {
+        this.isDirty = false;
     }
 
     public String getDescription() {
         return description;
     }
 
+    /**
+     * Returns whether the other object is the same task, by ID once the task has one and by identity before.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (id == 0 || !(other instanceof Task)) {
+            return false;
+        }
+        return ((Task) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id == 0 ? System.identityHashCode(this) : Long.hashCode(id);
+    }
+
     @Override
     public String toString() {
         return "[" + getStatusIcon() + "] " + description;
     }
 
-    public abstract String toFileFormat();
+    public String toFileFormat() {
+        return appendFileFormat(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the task in the task file format, so that writing many tasks can reuse one builder.
+     *
+     * @param builder The builder to append to.
+     * @return The builder.
+     */
+    public abstract StringBuilder appendFileFormat(StringBuilder builder);
 }
@@ -0,0 +1,25 @@
+package sheng.task;
+
+/**
+ * A search index over the tasks in a {@link TaskList}, kept up to date as tasks are added and deleted.
+ */
+interface TaskIndex {
+    /**
+     * Adds a task appended to the end of the list.
+     *
+     * @param task The task to add.
+     */
+    void add(Task task);
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     */
+    void remove(Task task);
+
+    /**
+     * Removes every task from the index.
+     */
+    void clear();
+}
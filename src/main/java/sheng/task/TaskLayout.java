@@ -0,0 +1,44 @@
+package sheng.task;
+
+/**
+ * Represents the ways a {@link TaskList} can keep its tasks in memory.
+ * Each layout knows the word that names it, so that it can be chosen when Sheng starts.
+ */
+public enum TaskLayout {
+    /** Tasks kept as objects, decoded from the data file only once they are used. */
+    OBJECTS("objects"),
+    /** Tasks kept in a {@link ColumnarTaskStore}, with task objects built only when asked for. */
+    COLUMNS("columns"),
+    /** Tasks kept in a {@link ColumnarTaskStore} whose descriptions are outside the heap. */
+    OFF_HEAP("offheap");
+
+    private final String word;
+
+    TaskLayout(String word) {
+        this.word = word;
+    }
+
+    /**
+     * Returns the word that names the layout.
+     *
+     * @return The layout word.
+     */
+    public String getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the layout named by the given word.
+     *
+     * @param word The word to look up.
+     * @return The layout, or null if no layout has that name.
+     */
+    public static TaskLayout fromWord(String word) {
+        for (TaskLayout layout : values()) {
+            if (layout.word.equals(word)) {
+                return layout;
+            }
+        }
+        return null;
+    }
+}
@@ -1,39 +1,110 @@
 package sheng.task;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Manages a list of tasks.
+ * Every task in the list has a stable ID, and IDs only grow along the list since new tasks are
+ * always appended. Tasks are kept in a {@link TaskStore}, so getting or deleting the task at a
+ * position, or finding the position of an ID, takes logarithmic time. The list also remembers
+ * which tasks were added, changed or deleted since storage last saved them, so that storage can
+ * write just those.
+ * Searches go through a trigram index, or a keyword index for keywords shorter than a trigram,
+ * fuzzy searches through an index of the lower-cased words, and ranked searches through an
+ * index of word frequencies. Deadlines are also kept sorted by when they are due, and events in
+ * an interval tree. Each index is built on the first search that needs it and then kept up to date as tasks are
+ * added and deleted.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private TaskStore tasks;
+    // Keyed by ID, so that a later view of a changed task replaces the earlier one
+    private final LinkedHashMap<Long, Task> dirtyTasks = new LinkedHashMap<>();
+    private final ArrayList<Task> deletedTasks = new ArrayList<>();
+    private boolean isCleared;
+    private final ArrayList<TaskIndex> indexes = new ArrayList<>();
+    private KeywordIndex keywordIndex;
+    private TrigramIndex trigramIndex;
+    private FuzzyIndex fuzzyIndex;
+    private Bm25Index bm25Index;
+    private DeadlineIndex deadlineIndex;
+    private EventIndex eventIndex;
 
     /**
-     * Constructs a TaskList with existing tasks.
+     * Constructs a TaskList with existing tasks, giving an ID to any task that has none yet.
+     * The list may be a {@link LazyTaskList}, in which case tasks are only decoded once they are used,
+     * or a {@link ColumnarTaskStore}, in which case tasks are kept in columns rather than as objects.
      *
      * @param tasks The list of tasks.
      */
-    public TaskList(ArrayList<Task> tasks) {
+    public TaskList(List<Task> tasks) {
         assert tasks != null : "Tasks list cannot be null";
-        this.tasks = tasks;
+        // A task store numbers its own tasks, so a lazy one needs nothing decoded here
+        this.tasks = tasks instanceof TaskStore ? (TaskStore) tasks : new TaskStore(tasks);
+    }
+
+    /**
+     * Constructs a TaskList with existing tasks, kept in the given layout.
+     * A task store given for a column layout is moved into the columns and left empty.
+     *
+     * @param tasks The list of tasks.
+     * @param layout How to keep the tasks in memory.
+     */
+    public TaskList(List<Task> tasks, TaskLayout layout) {
+        this(layout == TaskLayout.OBJECTS ? tasks : toColumns(tasks, layout == TaskLayout.OFF_HEAP));
+    }
+
+    private static ColumnarTaskStore toColumns(List<Task> tasks, boolean isOffHeap) {
+        if (tasks instanceof TaskStore) {
+            return new ColumnarTaskStore((TaskStore) tasks, isOffHeap);
+        }
+        return new ColumnarTaskStore(tasks, isOffHeap);
     }
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the end of the list, giving it the next ID if it has none.
      *
      * @param task The task to add.
      */
     public void addTask(Task task) {
         assert task != null : "Task to add cannot be null";
         tasks.add(task);
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.add(task);
+        }
+        trackChange(task);
+    }
+
+    /**
+     * Adds the tasks to the end of the list in one batch, giving each the next ID if it has none.
+     *
+     * @param newTasks The tasks to add, in order.
+     */
+    public void addTasks(List<Task> newTasks) {
+        assert newTasks != null : "Tasks to add cannot be null";
+        tasks.addAll(newTasks);
+        for (TaskIndex taskIndex : indexes) {
+            for (Task task : newTasks) {
+                taskIndex.add(task);
+            }
+        }
+        for (Task task : newTasks) {
+            trackChange(task);
+        }
     }
 
     /**
@@ -47,6 +118,16 @@ public class TaskList {
         return tasks.get(index);
     }
 
+    /**
+     * Returns the position of the task with the given ID.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based index of the task, or -1 if no task in the list has the ID.
+     */
+    public int indexOfId(long id) {
+        return tasks.indexOfId(id);
+    }
+
     /**
      * Returns the number of tasks in the list.
      *
@@ -56,6 +137,17 @@ public class TaskList {
         return tasks.size();
     }
 
+    /**
+     * Passes every task to the visitor in list order. Tasks of a lazily loaded list that are not
+     * decoded yet are passed as their rows in the source, so that they can be saved undecoded.
+     *
+     * @param visitor The visitor to pass the tasks to.
+     * @throws IOException If the visitor fails.
+     */
+    public void visitTasks(TaskStore.TaskVisitor visitor) throws IOException {
+        tasks.visit(visitor);
+    }
+
     /**
      * Marks the task at the specified index as done.
      *
@@ -63,7 +155,7 @@ public class TaskList {
      */
     public void markTask(int index) {
         assert index >= 0 && index < tasks.size() : "Index out of bounds: " + index;
-        tasks.get(index).markAsDone();
+        trackChange(tasks.setDone(index, true));
     }
 
     /**
@@ -73,7 +165,7 @@ public class TaskList {
      */
     public void unmarkTask(int index) {
         assert index >= 0 && index < tasks.size() : "Index out of bounds: " + index;
-        tasks.get(index).markAsNotDone();
+        trackChange(tasks.setDone(index, false));
     }
 
     /**
@@ -84,31 +176,168 @@ public class TaskList {
      */
     public Task deleteTask(int index) {
         assert index >= 0 && index < tasks.size() : "Index out of bounds: " + index;
-        return tasks.remove(index);
+        Task task = tasks.remove(index);
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.remove(task);
+        }
+        task.markDirty();
+        deletedTasks.add(task);
+        return task;
     }
 
     /**
-     * Returns all tasks in the list.
+     * Marks the tasks at the specified indices as done.
+     *
+     * @param indices The indices of the tasks to mark.
+     */
+    public void markTasks(int[] indices) {
+        for (int index : indices) {
+            markTask(index);
+        }
+    }
+
+    /**
+     * Marks the tasks at the specified indices as not done.
+     *
+     * @param indices The indices of the tasks to unmark.
+     */
+    public void unmarkTasks(int[] indices) {
+        for (int index : indices) {
+            unmarkTask(index);
+        }
+    }
+
+    /**
+     * Deletes the tasks at the specified indices.
+     * The tasks are removed from the highest index down, so removing one never moves the tasks
+     * still to be removed.
+     *
+     * @param indices The indices of the tasks to delete, in increasing order and without repeats.
+     * @return The deleted tasks, in the order they were in the list.
+     */
+    public ArrayList<Task> deleteTasks(int[] indices) {
+        Task[] deleted = new Task[indices.length];
+        for (int k = indices.length - 1; k >= 0; k--) {
+            assert k == 0 || indices[k - 1] < indices[k] : "Indices must be increasing";
+            deleted[k] = deleteTask(indices[k]);
+        }
+        return new ArrayList<>(Arrays.asList(deleted));
+    }
+
+    /**
+     * Returns all tasks in the list, in a new list.
+     * For a lazily loaded list this decodes every task.
      *
      * @return The list of all tasks.
      */
     public ArrayList<Task> getAllTasks() {
-        return tasks;
+        return new ArrayList<>(tasks);
     }
 
     /**
      * Finds all tasks whose descriptions contain the specified keyword.
+     * Keywords of at least three characters are answered from the trigram index, and shorter
+     * single-word keywords from the keyword index. Anything else falls back to checking every description.
      *
      * @param keyword The keyword to search for.
      * @return A list of tasks matching the keyword.
      */
     public ArrayList<Task> findTasks(String keyword) {
         assert keyword != null : "Search keyword cannot be null";
+        if (TrigramIndex.canSearch(keyword)) {
+            if (trigramIndex == null) {
+                trigramIndex = new TrigramIndex(tasks);
+                indexes.add(trigramIndex);
+            }
+            return current(trigramIndex.find(keyword));
+        }
+        if (KeywordIndex.canSearch(keyword)) {
+            if (keywordIndex == null) {
+                keywordIndex = new KeywordIndex(tasks);
+                indexes.add(keywordIndex);
+            }
+            return current(keywordIndex.find(keyword));
+        }
         return tasks.stream()
                 .filter(task -> task.getDescription().contains(keyword))
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
+    /**
+     * Finds all tasks with words close to the words of the keyword, ignoring case.
+     * Every word of the keyword must be within a few edits of some word of the task, and
+     * the closest tasks come first.
+     *
+     * @param keyword The keyword to search for.
+     * @return A list of matching tasks, ranked by how close they are.
+     */
+    public ArrayList<Task> findTasksFuzzy(String keyword) {
+        assert keyword != null : "Search keyword cannot be null";
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex(tasks);
+            indexes.add(fuzzyIndex);
+        }
+        return current(fuzzyIndex.find(keyword));
+    }
+
+    /**
+     * Finds the tasks most relevant to the query, ignoring case.
+     * Tasks are ranked by their BM25 score, which favours tasks with rarer query words and shorter descriptions.
+     *
+     * @param query The words to search for.
+     * @param limit The largest number of tasks to return.
+     * @return Up to {@code limit} tasks containing at least one query word, most relevant first.
+     */
+    public ArrayList<Task> searchTasks(String query, int limit) {
+        assert query != null : "Search query cannot be null";
+        assert limit > 0 : "Search limit must be positive";
+        if (bm25Index == null) {
+            bm25Index = new Bm25Index(tasks);
+            indexes.add(bm25Index);
+        }
+        return current(bm25Index.search(query, limit));
+    }
+
+    /**
+     * Finds the deadlines due strictly between the given times, earliest first.
+     *
+     * @param after The time the deadlines must be due after, or null for no lower bound.
+     * @param before The time the deadlines must be due before, or null for no upper bound.
+     * @return A list of the matching deadlines.
+     */
+    public ArrayList<Task> findDeadlinesDue(LocalDateTime after, LocalDateTime before) {
+        if (deadlineIndex == null) {
+            deadlineIndex = new DeadlineIndex(tasks);
+            indexes.add(deadlineIndex);
+        }
+        return current(deadlineIndex.findDue(after, before));
+    }
+
+    /**
+     * Finds the events that overlap the window from {@code start} to {@code end}.
+     * An event that ends exactly when the window starts, or starts exactly when it ends, does not overlap it.
+     *
+     * @param start The start of the window.
+     * @param end The end of the window.
+     * @return A list of the overlapping events, by start time.
+     */
+    public ArrayList<Task> findOverlappingEvents(LocalDateTime start, LocalDateTime end) {
+        assert start != null && end != null : "Window bounds cannot be null";
+        return current(getEventIndex().findOverlapping(start, end));
+    }
+
+    /**
+     * Finds the earliest time from which a window of the given length overlaps no event.
+     *
+     * @param earliest The earliest time the window may start.
+     * @param length The length of the window.
+     * @return The start of the first free window.
+     */
+    public LocalDateTime findFreeSlot(LocalDateTime earliest, Duration length) {
+        assert earliest != null && length != null : "Slot bounds cannot be null";
+        return getEventIndex().findFreeSlot(earliest, length);
+    }
+
     /**
      * Clears all tasks from the list.
      * AI-assisted: GitHub Copilot suggested using ArrayList's built-in clear() method
@@ -116,5 +345,80 @@ public class TaskList {
      */
     public void clearAllTasks() {
         tasks.clear();
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.clear();
+        }
+        // Every task is gone, so there is nothing left to save one by one
+        clearChanges();
+        isCleared = true;
+    }
+
+    /**
+     * Returns the tasks added or changed since the last save, including any that were deleted since.
+     *
+     * @return The changed tasks, in the order they first changed.
+     */
+    public Collection<Task> getDirtyTasks() {
+        return dirtyTasks.values();
+    }
+
+    /**
+     * Returns the tasks deleted since the last save.
+     *
+     * @return The deleted tasks, in the order they were deleted.
+     */
+    public List<Task> getDeletedTasks() {
+        return deletedTasks;
+    }
+
+    /**
+     * Returns whether the whole list has been cleared since the last save.
+     *
+     * @return True if the list was cleared.
+     */
+    public boolean isCleared() {
+        return isCleared;
+    }
+
+    /**
+     * Records that all changes so far have been saved.
+     */
+    public void markSaved() {
+        clearChanges();
+        isCleared = false;
+    }
+
+    private void trackChange(Task task) {
+        task.markDirty();
+        dirtyTasks.put(task.getId(), task);
+    }
+
+    private void clearChanges() {
+        for (Task task : dirtyTasks.values()) {
+            task.markClean();
+        }
+        for (Task task : deletedTasks) {
+            task.markClean();
+        }
+        dirtyTasks.clear();
+        deletedTasks.clear();
+    }
+
+    /**
+     * Brings tasks found in an index up to date with the store, since a store that hands out views
+     * only changes its own columns when a task is marked.
+     */
+    private ArrayList<Task> current(ArrayList<Task> found) {
+        tasks.refresh(found);
+        return found;
+    }
+
+    private EventIndex getEventIndex() {
+        if (eventIndex == null) {
+            // Only the events need decoding, so adding an event to a lazily loaded list stays cheap
+            eventIndex = new EventIndex(tasks.getEvents());
+            indexes.add(eventIndex);
+        }
+        return eventIndex;
     }
 }
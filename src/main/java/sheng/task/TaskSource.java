@@ -0,0 +1,43 @@
+package sheng.task;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Supplies tasks that are only decoded when they are first needed.
+ * A source may hold a file open, so it is closed once none of its tasks are needed any more.
+ */
+public interface TaskSource extends Closeable {
+    /**
+     * Returns the number of tasks the source holds.
+     *
+     * @return The number of tasks.
+     */
+    int getTaskCount();
+
+    /**
+     * Decodes the task stored in the given row.
+     *
+     * @param row The zero-based row of the task in the source.
+     * @return The decoded task.
+     */
+    Task loadTask(int row);
+
+    /**
+     * Returns whether the task stored in the given row is an event.
+     * A source that can tell without decoding the task should override this.
+     *
+     * @param row The zero-based row of the task in the source.
+     * @return True if the task is an event.
+     */
+    default boolean isEvent(int row) {
+        return loadTask(row) instanceof Event;
+    }
+
+    /**
+     * Releases whatever the source holds open. A source that holds nothing open need not override this.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,727 @@
+package sheng.task;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * Stores tasks in slots in the order they were added, so that a task keeps its slot for as long
+ * as it is in the list. The order of the list is kept separately in an order-statistic tree over
+ * the slots: a treap in which every node records the size of its subtree. Getting, inserting and
+ * deleting the task at a position, and finding the position of a task, all walk one path of the
+ * tree and so take logarithmic time instead of shifting every later task.
+ * Deleting a task leaves a tombstone in its slot, and tombstones are swept out once they make up
+ * half of the slots.
+ *
+ * <p>Tasks may come from a {@link TaskSource}, in which case each one is only decoded the first
+ * time it is accessed. A task from the source gets its row plus one as its ID, and a task added
+ * without an ID gets the next one after the highest so far, so IDs grow along the slots.
+ * The source is closed as soon as it has nothing left to decode, which is once every task from it
+ * has been decoded or the store is cleared.
+ *
+ * <p>What a slot holds is up to the slot methods, which a subclass may override to keep tasks in
+ * another form. Here each slot holds the task object itself.
+ */
+public class TaskStore extends AbstractList<Task> implements RandomAccess {
+    private static final int NEW_TASK_ROW = -1;
+    private static final int NONE = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MIN_TOMBSTONES_TO_SWEEP = 64;
+
+    private TaskSource source;
+    private final SplittableRandom random = new SplittableRandom();
+    private Task[] tasks;
+    private int[] rows;
+    private long[] ids;
+    private final BitSet tombstones = new BitSet();
+    // The tree, with each node stored at the index of its slot
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] subtreeSizes;
+    private int[] priorities;
+    private int root = NONE;
+    private int slotCount;
+    private int size;
+    private int loadedCount;
+    private long nextId = 1;
+    private boolean isIdOrdered = true;
+
+    /**
+     * Receives the tasks of a store in list order, each either as a task or, if it has not been
+     * decoded yet, as its row in the source it would be decoded from.
+     */
+    public interface TaskVisitor {
+        void visitTask(Task task) throws IOException;
+
+        void visitUndecoded(TaskSource source, int row) throws IOException;
+    }
+
+    /**
+     * Constructs a TaskStore over all tasks in the source, decoding each one when first accessed.
+     *
+     * @param source The source to decode tasks from.
+     */
+    public TaskStore(TaskSource source) {
+        assert source != null : "Task source cannot be null";
+        this.source = source;
+        int taskCount = source.getTaskCount();
+        allocate(Math.max(MIN_CAPACITY, taskCount));
+        for (int i = 0; i < taskCount; i++) {
+            rows[i] = i;
+            ids[i] = i + 1L;
+        }
+        slotCount = taskCount;
+        size = taskCount;
+        nextId = taskCount + 1L;
+        buildTree();
+        if (taskCount == 0) {
+            closeSource();
+        }
+    }
+
+    /**
+     * Constructs a TaskStore holding the given tasks, giving an ID to any task that has none yet.
+     *
+     * @param tasks The tasks to store, in list order.
+     */
+    public TaskStore(List<Task> tasks) {
+        fill(tasks);
+    }
+
+    /**
+     * Constructs a TaskStore with no slots yet, for a subclass that must set itself up before its
+     * slots are allocated. The subclass then calls {@link #fill(List)}.
+     */
+    TaskStore() {
+    }
+
+    /**
+     * Allocates the slots and fills them with the given tasks, giving an ID to any task that has none yet.
+     */
+    final void fill(List<Task> tasks) {
+        assert tasks != null : "Tasks list cannot be null";
+        assert ids == null : "Slots are already allocated";
+        allocate(Math.max(MIN_CAPACITY, tasks.size()));
+        for (Task task : tasks) {
+            appendSlot(task);
+        }
+        size = slotCount;
+        buildTree();
+    }
+
+    /**
+     * Allocates the slots and moves the tasks of another store into them in list order, keeping their IDs.
+     * A task the other store has not decoded yet is decoded only to be copied, and the other store is
+     * emptied afterwards, so a subclass that copies each task into its slots never holds the whole
+     * list twice.
+     */
+    final void drain(TaskStore other) {
+        assert other != null : "Task store cannot be null";
+        assert ids == null : "Slots are already allocated";
+        allocate(Math.max(MIN_CAPACITY, other.size));
+        for (int slot = other.root == NONE ? NONE : other.leftmost(other.root); slot != NONE;
+                slot = other.successor(slot)) {
+            Task task;
+            if (other.isSlotDecoded(slot)) {
+                task = other.loadSlot(slot);
+            } else {
+                task = other.source.loadTask(other.rows[slot]);
+                task.setId(other.ids[slot]);
+            }
+            appendSlot(task);
+        }
+        size = slotCount;
+        nextId = Math.max(nextId, other.nextId);
+        buildTree();
+        other.clear();
+    }
+
+    /**
+     * Returns the ID the next task added without one will get, which is above every ID in the store.
+     *
+     * @return The next free ID.
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Returns the position of the task with the given ID.
+     *
+     * @param id The ID of the task.
+     * @return The zero-based position of the task, or -1 if no task in the store has the ID.
+     */
+    public int indexOfId(long id) {
+        int slot = findSlotOfId(id);
+        return slot < 0 ? -1 : rankOf(slot);
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        return loadSlot(findSlot(index));
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        assert task != null : "Task cannot be null";
+        checkIndex(index, size);
+        int slot = findSlot(index);
+        Task previous = loadSlot(slot);
+        storeSlot(slot, task);
+        if (task.getId() != ids[slot]) {
+            ids[slot] = task.getId();
+            isIdOrdered = false;
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Marks the task at the given position as done or not done.
+     *
+     * @param index The position of the task.
+     * @param isDone Whether the task is done.
+     * @return The task, as it is after the change.
+     */
+    public Task setDone(int index, boolean isDone) {
+        checkIndex(index, size);
+        return setSlotDone(findSlot(index), isDone);
+    }
+
+    /**
+     * Inserts a task at the given position, giving it the next ID if it has none.
+     * The task always takes a new slot at the end, so the slots stay in ID order wherever it goes in the list.
+     */
+    @Override
+    public void add(int index, Task task) {
+        assert task != null : "Task cannot be null";
+        checkIndex(index, size + 1);
+        if (slotCount == ids.length) {
+            sweepTombstones();
+            allocateSlotsFor(slotCount + 1);
+        }
+        int slot = slotCount;
+        appendSlot(task);
+        left[slot] = NONE;
+        right[slot] = NONE;
+        subtreeSizes[slot] = 1;
+        priorities[slot] = random.nextInt();
+        long halves = split(root, index);
+        root = merge(merge(firstHalf(halves), slot), secondHalf(halves));
+        parent[root] = NONE;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        checkIndex(index, size);
+        int slot = findSlot(index);
+        Task removed = loadSlot(slot);
+        unlink(slot);
+        clearSlot(slot);
+        tombstones.set(slot);
+        size--;
+        modCount++;
+        int tombstoneCount = slotCount - size;
+        if (tombstoneCount >= MIN_TOMBSTONES_TO_SWEEP && tombstoneCount > slotCount / 2) {
+            sweepTombstones();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        closeSource();
+        allocate(MIN_CAPACITY);
+        tombstones.clear();
+        root = NONE;
+        slotCount = 0;
+        size = 0;
+        // No task is left to keep its ID, so numbering can start over
+        nextId = 1;
+        isIdOrdered = true;
+        modCount++;
+    }
+
+    /**
+     * Walks the tree in order, so iterating over the whole store takes linear time.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int slot = root == NONE ? NONE : leftmost(root);
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return slot != NONE;
+            }
+
+            @Override
+            public Task next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task task = loadSlot(slot);
+                slot = successor(slot);
+                return task;
+            }
+        };
+    }
+
+    /**
+     * Passes every task to the visitor in list order without decoding any, so that writing the
+     * tasks out does not leave every one of them decoded in memory.
+     *
+     * @param visitor The visitor to pass the tasks to.
+     * @throws IOException If the visitor fails.
+     */
+    public void visit(TaskVisitor visitor) throws IOException {
+        int expectedModCount = modCount;
+        for (int slot = root == NONE ? NONE : leftmost(root); slot != NONE; slot = successor(slot)) {
+            if (isSlotDecoded(slot)) {
+                visitor.visitTask(loadSlot(slot));
+            } else {
+                visitor.visitUndecoded(source, rows[slot]);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Returns how many tasks have been decoded from the source so far.
+     *
+     * @return The number of decoded tasks.
+     */
+    int getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Brings tasks found outside the store, such as in an index, up to date with it.
+     * Here the slots hold the task objects themselves, so there is nothing to do.
+     *
+     * @param found The tasks, which must all still be in the store.
+     */
+    void refresh(List<Task> found) {
+    }
+
+    /**
+     * Returns the slot of the task with the given ID, or -1 if no task in the store has the ID.
+     */
+    int findSlotOfId(long id) {
+        int slot = isIdOrdered ? Arrays.binarySearch(ids, 0, slotCount, id) : linearSearch(id);
+        if (slot < 0 || tombstones.get(slot)) {
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the ID of the task in the given slot.
+     */
+    long getSlotId(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * Returns the events in the store, decoding only the events among the tasks not decoded yet.
+     *
+     * @return The events, in slot order.
+     */
+    ArrayList<Task> getEvents() {
+        ArrayList<Task> events = new ArrayList<>();
+        for (int slot = tombstones.nextClearBit(0); slot < slotCount; slot = tombstones.nextClearBit(slot + 1)) {
+            if (isEventSlot(slot)) {
+                events.add(loadSlot(slot));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Returns whether the task in the given slot is an event, asking the source if it is not decoded yet.
+     */
+    boolean isEventSlot(int slot) {
+        return isSlotDecoded(slot) ? tasks[slot] instanceof Event : source.isEvent(rows[slot]);
+    }
+
+    /**
+     * Returns whether the task in the given slot can be had without decoding it from the source.
+     */
+    boolean isSlotDecoded(int slot) {
+        return tasks[slot] != null;
+    }
+
+    /**
+     * Returns the task in the given slot, decoding it from the source if needed.
+     */
+    Task loadSlot(int slot) {
+        if (tasks[slot] == null) {
+            Task task = source.loadTask(rows[slot]);
+            task.setId(ids[slot]);
+            tasks[slot] = task;
+            loadedCount++;
+            if (loadedCount == source.getTaskCount()) {
+                closeSource();
+            }
+        }
+        return tasks[slot];
+    }
+
+    private void closeSource() {
+        if (source == null) {
+            return;
+        }
+        try {
+            source.close();
+        } catch (IOException e) {
+            // The source was only ever read from, so failing to close it loses nothing
+        }
+        source = null;
+    }
+
+    /**
+     * Marks the task in the given slot as done or not done.
+     *
+     * @return The task, as it is after the change.
+     */
+    Task setSlotDone(int slot, boolean isDone) {
+        Task task = loadSlot(slot);
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+        return task;
+    }
+
+    /**
+     * Puts a task into the given slot, replacing whatever the slot held.
+     */
+    void storeSlot(int slot, Task task) {
+        tasks[slot] = task;
+        rows[slot] = NEW_TASK_ROW;
+    }
+
+    /**
+     * Empties the slot of a deleted task.
+     */
+    void clearSlot(int slot) {
+        tasks[slot] = null;
+    }
+
+    /**
+     * Moves the contents of a slot down to a lower slot, leaving the old slot empty.
+     */
+    void moveSlot(int from, int to) {
+        tasks[to] = tasks[from];
+        rows[to] = rows[from];
+        tasks[from] = null;
+    }
+
+    /**
+     * Makes room for the given number of slots, dropping everything held so far.
+     */
+    void allocateSlots(int capacity) {
+        tasks = new Task[capacity];
+        rows = new int[capacity];
+    }
+
+    /**
+     * Makes room for the given number of slots, keeping what the existing slots hold.
+     */
+    void growSlots(int capacity) {
+        tasks = Arrays.copyOf(tasks, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+    }
+
+    private void appendSlot(Task task) {
+        if (task.getId() == 0) {
+            task.setId(nextId);
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+        if (slotCount > 0 && ids[slotCount - 1] >= task.getId()) {
+            isIdOrdered = false;
+        }
+        storeSlot(slotCount, task);
+        ids[slotCount] = task.getId();
+        slotCount++;
+    }
+
+    /**
+     * Builds a tree over all slots in slot order with fresh priorities, in linear time.
+     * The right spine of the tree so far is kept on a stack, and each new slot takes over the part
+     * of the spine with lower priorities as its left subtree.
+     */
+    private void buildTree() {
+        ArrayDeque<Integer> spine = new ArrayDeque<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            priorities[slot] = random.nextInt();
+            right[slot] = NONE;
+            int lastPopped = NONE;
+            while (!spine.isEmpty() && priorities[spine.peek()] < priorities[slot]) {
+                lastPopped = spine.pop();
+            }
+            left[slot] = lastPopped;
+            if (!spine.isEmpty()) {
+                right[spine.peek()] = slot;
+            }
+            spine.push(slot);
+        }
+        root = spine.isEmpty() ? NONE : spine.peekLast();
+        if (root != NONE) {
+            updateSubtree(root);
+            parent[root] = NONE;
+        }
+    }
+
+    private void updateSubtree(int slot) {
+        if (left[slot] != NONE) {
+            updateSubtree(left[slot]);
+        }
+        if (right[slot] != NONE) {
+            updateSubtree(right[slot]);
+        }
+        update(slot);
+    }
+
+    /**
+     * Recomputes the size of a node's subtree from its children and points the children back at it.
+     */
+    private void update(int slot) {
+        subtreeSizes[slot] = 1 + sizeOf(left[slot]) + sizeOf(right[slot]);
+        if (left[slot] != NONE) {
+            parent[left[slot]] = slot;
+        }
+        if (right[slot] != NONE) {
+            parent[right[slot]] = slot;
+        }
+    }
+
+    private int sizeOf(int slot) {
+        return slot == NONE ? 0 : subtreeSizes[slot];
+    }
+
+    /**
+     * Splits a subtree into its first {@code count} nodes and the rest.
+     *
+     * @return The roots of both parts, packed into a long.
+     */
+    private long split(int slot, int count) {
+        if (slot == NONE) {
+            return pack(NONE, NONE);
+        }
+        if (sizeOf(left[slot]) >= count) {
+            long halves = split(left[slot], count);
+            left[slot] = secondHalf(halves);
+            update(slot);
+            return pack(firstHalf(halves), slot);
+        }
+        long halves = split(right[slot], count - sizeOf(left[slot]) - 1);
+        right[slot] = firstHalf(halves);
+        update(slot);
+        return pack(slot, secondHalf(halves));
+    }
+
+    /**
+     * Joins two subtrees, keeping every node of the first before every node of the second.
+     *
+     * @return The root of the joined tree.
+     */
+    private int merge(int first, int second) {
+        if (first == NONE) {
+            return second;
+        }
+        if (second == NONE) {
+            return first;
+        }
+        if (priorities[first] > priorities[second]) {
+            right[first] = merge(right[first], second);
+            update(first);
+            return first;
+        }
+        left[second] = merge(first, left[second]);
+        update(second);
+        return second;
+    }
+
+    private static long pack(int first, int second) {
+        return (long) first << 32 | (second & 0xffffffffL);
+    }
+
+    private static int firstHalf(long halves) {
+        return (int) (halves >> 32);
+    }
+
+    private static int secondHalf(long halves) {
+        return (int) halves;
+    }
+
+    /**
+     * Takes a node out of the tree by putting the merge of its children in its place.
+     */
+    private void unlink(int slot) {
+        int replacement = merge(left[slot], right[slot]);
+        int above = parent[slot];
+        if (replacement != NONE) {
+            parent[replacement] = above;
+        }
+        if (above == NONE) {
+            root = replacement;
+            return;
+        }
+        if (left[above] == slot) {
+            left[above] = replacement;
+        } else {
+            right[above] = replacement;
+        }
+        for (int node = above; node != NONE; node = parent[node]) {
+            subtreeSizes[node]--;
+        }
+    }
+
+    /**
+     * Returns the slot of the task at the given position by descending the tree.
+     */
+    private int findSlot(int index) {
+        int slot = root;
+        int remaining = index;
+        while (true) {
+            int leftSize = sizeOf(left[slot]);
+            if (remaining < leftSize) {
+                slot = left[slot];
+            } else if (remaining == leftSize) {
+                return slot;
+            } else {
+                remaining -= leftSize + 1;
+                slot = right[slot];
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the task in the given slot by climbing to the root.
+     */
+    private int rankOf(int slot) {
+        int rank = sizeOf(left[slot]);
+        for (int node = slot; parent[node] != NONE; node = parent[node]) {
+            if (right[parent[node]] == node) {
+                rank += sizeOf(left[parent[node]]) + 1;
+            }
+        }
+        return rank;
+    }
+
+    private int leftmost(int slot) {
+        while (left[slot] != NONE) {
+            slot = left[slot];
+        }
+        return slot;
+    }
+
+    private int successor(int slot) {
+        if (right[slot] != NONE) {
+            return leftmost(right[slot]);
+        }
+        int node = slot;
+        while (parent[node] != NONE && right[parent[node]] == node) {
+            node = parent[node];
+        }
+        return parent[node];
+    }
+
+    /**
+     * Moves the live slots down over the tombstones, keeping their order, and renumbers the
+     * tree to match. The shape of the tree stays the same.
+     */
+    private void sweepTombstones() {
+        if (size == slotCount) {
+            return;
+        }
+        int[] newSlots = new int[slotCount];
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            newSlots[slot] = tombstones.get(slot) ? NONE : live++;
+        }
+        for (int slot = tombstones.nextClearBit(0); slot < slotCount; slot = tombstones.nextClearBit(slot + 1)) {
+            int target = newSlots[slot];
+            if (target != slot) {
+                moveSlot(slot, target);
+            }
+            ids[target] = ids[slot];
+            left[target] = renumber(newSlots, left[slot]);
+            right[target] = renumber(newSlots, right[slot]);
+            parent[target] = renumber(newSlots, parent[slot]);
+            subtreeSizes[target] = subtreeSizes[slot];
+            priorities[target] = priorities[slot];
+        }
+        root = renumber(newSlots, root);
+        tombstones.clear();
+        slotCount = live;
+    }
+
+    private static int renumber(int[] newSlots, int slot) {
+        return slot == NONE ? NONE : newSlots[slot];
+    }
+
+    private void allocateSlotsFor(int slotsNeeded) {
+        if (slotsNeeded <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(slotsNeeded, ids.length + (ids.length >> 1));
+        growSlots(capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        subtreeSizes = Arrays.copyOf(subtreeSizes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+    }
+
+    private void allocate(int capacity) {
+        allocateSlots(capacity);
+        ids = new long[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        subtreeSizes = new int[capacity];
+        priorities = new int[capacity];
+    }
+
+    private int linearSearch(long id) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
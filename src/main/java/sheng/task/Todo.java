@@ -20,7 +20,7 @@ public class Todo extends Task {
     }
 
     @Override
-    public String toFileFormat() {
-        return "T | " + (isDone ? "1" : "0") + " | " + description;
+    public StringBuilder appendFileFormat(StringBuilder builder) {
+        return builder.append("T | ").append(isDone ? '1' : '0').append(" | ").append(description);
     }
 }
@@ -0,0 +1,210 @@
+package sheng.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps every run of three characters in the task descriptions to the tasks containing it.
+ * A description can only contain a keyword if it contains every trigram of the keyword, so the
+ * tasks of the keyword's rarest trigram are the only candidates, and checking just those for the
+ * keyword gives the same tasks as checking every description.
+ * Each trigram keeps its tasks in an array sorted by ID, which is also their order in the list,
+ * and removes them lazily, so adding or removing a task costs about the same however common its
+ * trigrams are.
+ */
+class TrigramIndex implements TaskIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final HashMap<Long, Postings> tasksByTrigram = new HashMap<>();
+
+    /**
+     * Constructs an index over the given tasks.
+     *
+     * @param tasks The tasks to index, in list order.
+     */
+    TrigramIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns whether the keyword can be looked up in the index.
+     * Keywords shorter than a trigram need another way to be searched.
+     *
+     * @param keyword The keyword to search for.
+     * @return True if the index can answer the search.
+     */
+    static boolean canSearch(String keyword) {
+        return keyword.length() >= GRAM_LENGTH;
+    }
+
+    @Override
+    public void add(Task task) {
+        for (long trigram : trigramsOf(task.getDescription())) {
+            tasksByTrigram.computeIfAbsent(trigram, t -> new Postings()).add(task);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        for (long trigram : trigramsOf(task.getDescription())) {
+            Postings postings = tasksByTrigram.get(trigram);
+            if (postings == null) {
+                continue;
+            }
+            postings.remove(task);
+            if (postings.size == 0) {
+                tasksByTrigram.remove(trigram);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        tasksByTrigram.clear();
+    }
+
+    /**
+     * Finds the tasks whose descriptions contain the keyword.
+     *
+     * @param keyword The keyword to search for, which must pass {@link #canSearch(String)}.
+     * @return The matching tasks, in list order.
+     */
+    ArrayList<Task> find(String keyword) {
+        assert canSearch(keyword) : "Keyword is shorter than a trigram";
+        Postings candidates = null;
+        for (long trigram : trigramsOf(keyword)) {
+            Postings postings = tasksByTrigram.get(trigram);
+            if (postings == null) {
+                return new ArrayList<>();
+            }
+            if (candidates == null || postings.size < candidates.size) {
+                candidates = postings;
+            }
+        }
+        ArrayList<Task> result = new ArrayList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            Task task = candidates.get(i);
+            // A task with the rarest trigram may still lack the others or have them in another order
+            if (task != null && task.getDescription().contains(keyword)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the distinct trigrams of the text, each packed into a long.
+     */
+    private static long[] trigramsOf(String text) {
+        int count = Math.max(0, text.length() - GRAM_LENGTH + 1);
+        long[] trigrams = new long[count];
+        for (int i = 0; i < count; i++) {
+            trigrams[i] = (long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * The tasks containing one trigram, sorted by ID.
+     * Removing a task leaves a tombstone: its entry is emptied but keeps its ID, so the entries stay
+     * sorted for the binary search. Tombstones are swept out together once they outnumber the tasks,
+     * so removing many tasks that share a common trigram never shifts the entries once per task.
+     */
+    private static class Postings {
+        private static final int MIN_TOMBSTONES_TO_SWEEP = 16;
+
+        private Task[] tasks = new Task[4];
+        private long[] ids = new long[4];
+        // Entries in use, including tombstones
+        private int length;
+        // Tasks in the entries, not counting tombstones
+        private int size;
+
+        void add(Task task) {
+            long id = task.getId();
+            if (length > 0 && ids[length - 1] >= id) {
+                // New tasks get the highest ID so far, so only a rare task goes anywhere but the end
+                insert(task);
+                return;
+            }
+            if (length == tasks.length) {
+                grow();
+            }
+            tasks[length] = task;
+            ids[length] = id;
+            length++;
+            size++;
+        }
+
+        void remove(Task task) {
+            int index = indexOf(task.getId());
+            if (index < 0 || tasks[index] == null) {
+                return;
+            }
+            tasks[index] = null;
+            size--;
+            int tombstones = length - size;
+            if (tombstones >= MIN_TOMBSTONES_TO_SWEEP && tombstones > size) {
+                sweep();
+            }
+        }
+
+        /**
+         * Returns the task in the given entry, or null if the entry is a tombstone.
+         */
+        Task get(int index) {
+            return tasks[index];
+        }
+
+        private void insert(Task task) {
+            sweep();
+            if (length == tasks.length) {
+                grow();
+            }
+            int index = length;
+            while (index > 0 && ids[index - 1] > task.getId()) {
+                index--;
+            }
+            System.arraycopy(tasks, index, tasks, index + 1, length - index);
+            System.arraycopy(ids, index, ids, index + 1, length - index);
+            tasks[index] = task;
+            ids[index] = task.getId();
+            length++;
+            size++;
+        }
+
+        private void sweep() {
+            int kept = 0;
+            for (int i = 0; i < length; i++) {
+                if (tasks[i] != null) {
+                    tasks[kept] = tasks[i];
+                    ids[kept] = ids[i];
+                    kept++;
+                }
+            }
+            Arrays.fill(tasks, kept, length, null);
+            length = kept;
+        }
+
+        private void grow() {
+            tasks = Arrays.copyOf(tasks, tasks.length * 2);
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+
+        private int indexOf(long id) {
+            int index = Arrays.binarySearch(ids, 0, length, id);
+            return index < 0 ? -1 : index;
+        }
+    }
+}
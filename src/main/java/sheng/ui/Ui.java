@@ -1,9 +1,12 @@
 package sheng.ui;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import sheng.task.DateTimeCodec;
 import sheng.task.Task;
 
 /**
@@ -159,6 +162,15 @@ public class Ui {
         scanner.close();
     }
 
+    /**
+     * Displays a line of progress on its own, without line separators.
+     *
+     * @param message The message to display.
+     */
+    public void showProgress(String message) {
+        System.out.println(" " + message);
+    }
+
     /**
      * Displays a message with line separators.
      *
@@ -231,6 +243,39 @@ public class Ui {
                 + "\nNow you have " + taskCount + " " + taskWord + " in the list.";
     }
 
+    /**
+     * Formats a message for marking several tasks as done at once.
+     *
+     * @param markedCount The number of tasks that were marked.
+     * @return Formatted message.
+     */
+    public String formatTasksMarked(int markedCount) {
+        return "Woohoo! I've marked " + markedCount + " tasks as done!";
+    }
+
+    /**
+     * Formats a message for unmarking several tasks at once.
+     *
+     * @param unmarkedCount The number of tasks that were unmarked.
+     * @return Formatted message.
+     */
+    public String formatTasksUnmarked(int unmarkedCount) {
+        return "No worries! I've marked " + unmarkedCount + " tasks as not done yet!";
+    }
+
+    /**
+     * Formats a message for deleting several tasks at once.
+     *
+     * @param deletedCount The number of tasks that were deleted.
+     * @param taskCount The remaining number of tasks.
+     * @return Formatted message.
+     */
+    public String formatTasksDeleted(int deletedCount, int taskCount) {
+        String taskWord = taskCount == 1 ? "task" : "tasks";
+        return "Noted. I've removed " + deletedCount + " tasks."
+                + "\nNow you have " + taskCount + " " + taskWord + " in the list.";
+    }
+
     /**
      * Formats a message for adding a task.
      *
@@ -261,6 +306,108 @@ public class Ui {
         return sb.toString().trim();
     }
 
+    /**
+     * Formats a warning about events that overlap a newly added event.
+     *
+     * @param conflicts The events that overlap it.
+     * @return Formatted warning.
+     */
+    public String formatEventConflicts(ArrayList<Task> conflicts) {
+        StringBuilder sb = new StringBuilder("Heads up! This event overlaps with:\n");
+        for (int i = 0; i < conflicts.size(); i++) {
+            sb.append((i + 1)).append(". ").append(conflicts.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Formats the start of the next free slot.
+     *
+     * @param start The time the free slot starts.
+     * @param hours The length of the slot in hours.
+     * @return Formatted message.
+     */
+    public String formatFreeSlot(LocalDateTime start, int hours) {
+        String hourWord = hours == 1 ? "hour" : "hours";
+        return "You're free for " + hours + " " + hourWord + " from " + DateTimeCodec.formatDisplay(start) + "!";
+    }
+
+    /**
+     * Formats a row of an imported file that could not be read as a task.
+     *
+     * @param lineNumber The line number of the row, starting from 1.
+     * @param reason Why the row was rejected.
+     * @return Formatted message.
+     */
+    public String formatImportRejected(long lineNumber, String reason) {
+        return "Skipped line " + lineNumber + ": " + reason;
+    }
+
+    /**
+     * Formats the skipped rows of an import that could not be reported while it ran.
+     *
+     * @param skippedRows The messages for the first skipped rows, from {@link #formatImportRejected}.
+     * @param rejectedCount The number of rows that were skipped in all.
+     * @return Formatted message.
+     */
+    public String formatSkippedRows(List<String> skippedRows, long rejectedCount) {
+        StringBuilder sb = new StringBuilder(String.join("\n", skippedRows));
+        long notShown = rejectedCount - skippedRows.size();
+        if (notShown > 0) {
+            sb.append("\n...and ").append(notShown).append(" more skipped ").append(notShown == 1 ? "row" : "rows");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats how far an import has got.
+     *
+     * @param rowCount The number of rows read so far.
+     * @return Formatted message.
+     */
+    public String formatImportProgress(long rowCount) {
+        return "Read " + rowCount + " rows so far...";
+    }
+
+    /**
+     * Formats the result of an import.
+     *
+     * @param importedCount The number of tasks imported.
+     * @param rejectedCount The number of rows that were skipped.
+     * @param taskCount The total number of tasks after the import.
+     * @return Formatted message.
+     */
+    public String formatImportComplete(int importedCount, long rejectedCount, int taskCount) {
+        String taskWord = importedCount == 1 ? "task" : "tasks";
+        String rowWord = rejectedCount == 1 ? "row" : "rows";
+        String totalWord = taskCount == 1 ? "task" : "tasks";
+        return "Imported " + importedCount + " " + taskWord + ", skipping " + rejectedCount + " " + rowWord + "!"
+                + "\nNow you have " + taskCount + " " + totalWord + " in the list.";
+    }
+
+    /**
+     * Formats an error from a command in a batch script, with the line it came from.
+     *
+     * @param lineNumber The line number of the command in the script, starting from 1.
+     * @param message The error message.
+     * @return Formatted message.
+     */
+    public String formatBatchError(int lineNumber, String message) {
+        return "Line " + lineNumber + ": " + message;
+    }
+
+    /**
+     * Formats the summary written after a batch script has run.
+     *
+     * @param commandCount The number of commands in the script that were run.
+     * @param failedCount The number of those commands that failed.
+     * @return Formatted message.
+     */
+    public String formatBatchSummary(int commandCount, int failedCount) {
+        String commandWord = commandCount == 1 ? "command" : "commands";
+        return "Ran " + commandCount + " " + commandWord + ", " + failedCount + " failed.";
+    }
+
     /**
      * Formats a message for archiving tasks.
      * AI-assisted: GitHub Copilot suggested using plural handling for "task" vs "tasks"
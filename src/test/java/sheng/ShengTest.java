@@ -0,0 +1,116 @@
+package sheng;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sheng.storage.Storage;
+import sheng.task.Task;
+import sheng.task.TaskLayout;
+import sheng.task.Todo;
+
+public class ShengTest {
+
+    @Test
+    public void getDataPath_dataOption_returnsFileAfterIt() {
+        assertEquals("tasks.bin", Sheng.getDataPath(new String[] {"--batch", "script.txt", "--data", "tasks.bin"}));
+        assertEquals("data/sheng.txt", Sheng.getDataPath(new String[] {"--batch", "script.txt"}));
+        assertTrue(Sheng.isBatch(new String[] {"--data", "tasks.bin", "--batch", "script.txt"}));
+        assertFalse(Sheng.isBatch(new String[] {"--data", "tasks.bin"}));
+    }
+
+    @Test
+    public void checkOptions_unknownOrMissingValue_returnsFalse() {
+        assertTrue(Sheng.checkOptions(new String[] {"--data", "tasks.bin"}));
+        assertFalse(Sheng.checkOptions(new String[] {"--data"}));
+        assertFalse(Sheng.checkOptions(new String[] {"--verbose", "yes"}));
+        assertTrue(Sheng.checkOptions(new String[] {"--store", "columns"}));
+        assertTrue(Sheng.checkOptions(new String[] {"--store", "offheap"}));
+        assertFalse(Sheng.checkOptions(new String[] {"--store", "rows"}));
+    }
+
+    @Test
+    public void getTaskLayout_storeOption_returnsLayoutNamed() {
+        String[] args = {"--data", "tasks.bin", "--store", "columns"};
+        assertEquals(TaskLayout.COLUMNS, Sheng.getTaskLayout(args));
+        assertEquals(TaskLayout.OBJECTS, Sheng.getTaskLayout(new String[] {"--data", "tasks.bin"}));
+    }
+
+    @Test
+    public void getResponse_columnLayouts_saveChanges(@TempDir Path tempDir) {
+        for (TaskLayout layout : List.of(TaskLayout.COLUMNS, TaskLayout.OFF_HEAP)) {
+            String dataFile = tempDir.resolve(layout.getWord() + ".txt").toString();
+            new Storage(dataFile).save(new ArrayList<>(List.of(new Todo("read book"))));
+
+            Sheng sheng = new Sheng(dataFile, layout);
+            sheng.getResponse("todo return book");
+            assertTrue(sheng.getResponse("mark 1").contains("[X] read book"));
+            assertEquals("Here are the tasks in your list:\n1. [T][X] read book\n2. [T][ ] return book",
+                    sheng.getResponse("list"));
+            sheng.getResponse("bye");
+
+            List<Task> loaded = new Storage(dataFile, true).load();
+            assertEquals(2, loaded.size());
+            assertTrue(loaded.get(0).isDone());
+            assertEquals("T | 0 | return book", loaded.get(1).toFileFormat());
+        }
+    }
+
+    @Test
+    public void getResponse_importWithBadRows_listsSkippedRows(@TempDir Path tempDir) throws Exception {
+        Path csv = tempDir.resolve("tasks.csv");
+        Files.write(csv, List.of("T,0,read book", "X,0,not a task"));
+        Sheng sheng = new Sheng(tempDir.resolve("sheng.txt").toString());
+
+        String response = sheng.getResponse("import " + csv);
+
+        assertTrue(response.contains("Skipped line 2: Unknown task type: X"));
+        assertTrue(response.contains("Imported 1 task, skipping 1 row!"));
+    }
+
+    @Test
+    public void getResponse_binaryDataFile_readsAndKeepsBinaryFormat(@TempDir Path tempDir) {
+        String dataFile = tempDir.resolve("sheng.bin").toString();
+        new Storage(dataFile).save(new ArrayList<>(List.of(new Todo("read book"))));
+
+        Sheng sheng = new Sheng(dataFile);
+        assertTrue(sheng.getResponse("list").contains("read book"));
+        sheng.getResponse("todo return book");
+        sheng.getResponse("bye");
+
+        List<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(2, loaded.size());
+        assertEquals("T | 0 | return book", loaded.get(1).toFileFormat());
+    }
+
+    @Test
+    public void getResponse_slotDataFile_rewritesOnlyChangedSlots(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.slots");
+        Sheng sheng = new Sheng(dataFile.toString());
+        for (int i = 1; i <= 50; i++) {
+            sheng.getResponse("todo task " + i);
+        }
+        byte[] before = Files.readAllBytes(dataFile);
+
+        assertTrue(sheng.getResponse("mark 20").contains("task 20"));
+        sheng.getResponse("bye");
+
+        byte[] after = Files.readAllBytes(dataFile);
+        assertEquals(before.length, after.length);
+        int changedBytes = 0;
+        for (int i = 0; i < before.length; i++) {
+            changedBytes += before[i] != after[i] ? 1 : 0;
+        }
+        assertTrue(changedBytes > 0 && changedBytes < 128);
+        assertFalse(Files.exists(tempDir.resolve("sheng.slots.journal")));
+        assertTrue(new Sheng(dataFile.toString()).getResponse("list").contains("20. [T][X] task 20"));
+    }
+}
@@ -0,0 +1,30 @@
+package sheng.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandTableTest {
+
+    @Test
+    public void find_everyWordAndAlias_returnsItsCommand() {
+        CommandTable table = new CommandTable(Command.values());
+        for (Command command : Command.values()) {
+            String line = "  " + command.getWord() + " 1";
+            assertEquals(command, table.find(line, 2, 2 + command.getWord().length()));
+            for (String alias : command.getAliases()) {
+                assertEquals(command, table.find(alias, 0, alias.length()));
+            }
+        }
+    }
+
+    @Test
+    public void find_prefixOrUnknownWord_returnsNull() {
+        CommandTable table = new CommandTable(Command.values());
+        assertNull(table.find("mar", 0, 3));
+        assertNull(table.find("unmarked", 0, 8));
+        assertNull(table.find("find~~", 0, 6));
+        assertNull(table.find("", 0, 0));
+    }
+}
@@ -1,7 +1,13 @@
 package sheng.parser;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import sheng.exception.ShengException;
@@ -65,63 +71,170 @@ public class ParserTest {
     }
 
     @Test
-    public void getTaskIndex_validMarkCommand_returnsCorrectIndex() throws ShengException {
-        assertEquals(0, Parser.getTaskIndex("mark 1", 5));
-        assertEquals(2, Parser.getTaskIndex("mark 3", 5));
+    public void getTaskIndices_validMarkCommand_returnsCorrectIndex() throws ShengException {
+        assertArrayEquals(new int[] {0}, Parser.parse("mark 1").getTaskIndices(5));
+        assertArrayEquals(new int[] {2}, Parser.parse("mark 3").getTaskIndices(5));
+    }
+
+    @Test
+    public void getTaskIndices_validDeleteCommand_returnsCorrectIndex() throws ShengException {
+        assertArrayEquals(new int[] {0}, Parser.parse("delete 1").getTaskIndices(3));
+        assertArrayEquals(new int[] {1}, Parser.parse("delete 2").getTaskIndices(3));
+    }
+
+    @Test
+    public void getTaskIndices_invalidIndex_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("mark 0").getTaskIndices(5));
+        assertThrows(ShengException.class, () -> Parser.parse("mark 10").getTaskIndices(5));
+        assertThrows(ShengException.class, () -> Parser.parse("delete -1").getTaskIndices(3));
+    }
+
+    @Test
+    public void getTaskIndices_rangesAndLists_returnsSortedIndicesWithoutRepeats() throws ShengException {
+        assertArrayEquals(new int[] {0, 1, 2, 3}, Parser.parse("mark 1-4").getTaskIndices(5));
+        assertArrayEquals(new int[] {2, 6, 8}, Parser.parse("delete 9,3, 7").getTaskIndices(10));
+        assertArrayEquals(new int[] {0, 1, 2, 4}, Parser.parse("unmark 2 - 3, 1-2, 5").getTaskIndices(5));
+    }
+
+    @Test
+    public void getTaskIndices_rangePastLastTask_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("mark 3-6").getTaskIndices(5));
+        assertThrows(ShengException.class, () -> Parser.parse("delete 1,6").getTaskIndices(5));
+    }
+
+    @Test
+    public void parse_sameRanges_returnsEqualUnchangeableCommands() throws ShengException {
+        ParsedCommand parsed = Parser.parse("mark 1-3, 5");
+        assertEquals(List.of(1, 3, 5, 5), parsed.taskRanges());
+        assertEquals(Parser.parse("mark 1-3, 5"), parsed);
+        assertEquals(Parser.parse("mark 1-3, 5").hashCode(), parsed.hashCode());
+        assertThrows(UnsupportedOperationException.class, () -> parsed.taskRanges().set(0, 2));
+    }
+
+    @Test
+    public void parse_unknownCommand_hintNamesEveryCommand() {
+        ShengException e = assertThrows(ShengException.class, () -> Parser.parse("mark3"));
+        for (Command command : Command.values()) {
+            assertTrue(e.getMessage().contains(command.getWord()), command.getWord());
+            for (String alias : command.getAliases()) {
+                assertTrue(e.getMessage().contains(alias), alias);
+            }
+        }
+    }
+
+    @Test
+    public void parse_malformedRange_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("mark 5-3"));
+        assertThrows(ShengException.class, () -> Parser.parse("mark 1-2-3"));
+        assertThrows(ShengException.class, () -> Parser.parse("delete 1,,2"));
+        assertThrows(ShengException.class, () -> Parser.parse("delete 1-"));
+    }
+
+    @Test
+    public void parse_nonNumericIndex_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("mark abc"));
+        assertThrows(ShengException.class, () -> Parser.parse("delete xyz"));
+    }
+
+    @Test
+    public void parse_todoCommand_returnsDescription() throws ShengException {
+        assertEquals("read book", Parser.parse("todo read book").text());
+        assertEquals("buy groceries", Parser.parse("  todo   buy groceries ").text());
+    }
+
+    @Test
+    public void parse_todoWithEmptyDescription_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("todo "));
+    }
+
+    @Test
+    public void parse_commandWordRunOn_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("todoread book"));
+        assertThrows(ShengException.class, () -> Parser.parse("list all"));
     }
 
     @Test
-    public void getTaskIndex_validDeleteCommand_returnsCorrectIndex() throws ShengException {
-        assertEquals(0, Parser.getTaskIndex("delete 1", 3));
-        assertEquals(1, Parser.getTaskIndex("delete 2", 3));
+    public void parse_commandAlias_returnsSameCommand() throws ShengException {
+        assertEquals(Command.TODO, Parser.getCommand("t read book"));
+        assertEquals(Command.LIST, Parser.getCommand("ls"));
+        assertEquals(Command.DELETE, Parser.getCommand("rm 2"));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 18, 0), Parser.parse("dl return book /by 2024-01-01 1800").by());
     }
 
     @Test
-    public void getTaskIndex_invalidIndex_throwsShengException() {
-        assertThrows(ShengException.class, () -> Parser.getTaskIndex("mark 0", 5));
-        assertThrows(ShengException.class, () -> Parser.getTaskIndex("mark 10", 5));
-        assertThrows(ShengException.class, () -> Parser.getTaskIndex("delete -1", 3));
+    public void parse_deadlineCommand_returnsDescriptionAndTime() throws ShengException {
+        ParsedCommand parsed = Parser.parse("deadline return book /by 2024-01-01 1800");
+        assertEquals("return book", parsed.text());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 18, 0), parsed.by());
     }
 
     @Test
-    public void getTaskIndex_nonNumericIndex_throwsShengException() {
-        assertThrows(ShengException.class, () -> Parser.getTaskIndex("mark abc", 5));
-        assertThrows(ShengException.class, () -> Parser.getTaskIndex("delete xyz", 3));
+    public void parse_deadlineWithInvalidTime_throwsShengException() {
+        assertThrows(ShengException.class, () -> Parser.parse("deadline return book /by tomorrow"));
+        assertThrows(ShengException.class, () -> Parser.parse("deadline /by 2024-01-01 1800"));
     }
 
     @Test
-    public void getTodoDescription_validInput_returnsDescription() throws ShengException {
-        assertEquals("read book", Parser.getTodoDescription("todo read book"));
-        assertEquals("buy groceries", Parser.getTodoDescription("todo buy groceries"));
+    public void parse_eventCommand_returnsDescriptionAndTimes() throws ShengException {
+        ParsedCommand parsed = Parser.parse("event project meeting /from 2024-01-01 1400 /to 2024-01-01 1600");
+        assertEquals("project meeting", parsed.text());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 14, 0), parsed.from());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 16, 0), parsed.to());
     }
 
     @Test
-    public void getTodoDescription_emptyDescription_throwsShengException() {
-        assertThrows(ShengException.class, () -> Parser.getTodoDescription("todo "));
+    public void parse_eventTimesInEitherOrder_returnsSameTimes() throws ShengException {
+        ParsedCommand parsed = Parser.parse("event talk on /tokens /to 2024-01-01 1600 /from 2024-01-01 1400");
+        assertEquals("talk on /tokens", parsed.text());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 14, 0), parsed.from());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 16, 0), parsed.to());
     }
 
     @Test
-    public void getDeadlineDescription_validInput_returnsDescription() throws ShengException {
-        assertEquals("return book", Parser.getDeadlineDescription("deadline return book /by 2024-01-01 1800"));
+    public void getCommand_fuzzyFindCommand_returnsCommandFuzzyFind() throws ShengException {
+        assertEquals(Command.FUZZY_FIND, Parser.getCommand("find~ bok"));
+        assertEquals(Command.FIND, Parser.getCommand("find bok"));
+        assertEquals("bok", Parser.parse("find~ bok ").text());
+        assertThrows(ShengException.class, () -> Parser.getCommand("find~"));
     }
 
     @Test
-    public void getDeadlineBy_validInput_returnsDate() throws ShengException {
-        assertEquals("2024-01-01 1800", Parser.getDeadlineBy("deadline return book /by 2024-01-01 1800"));
+    public void parse_searchWithAndWithoutLimit_returnsLimit() throws ShengException {
+        assertEquals(Command.SEARCH, Parser.getCommand("search book /limit 3"));
+        assertEquals("book club", Parser.parse("search book club /limit 3").text());
+        assertEquals(3, Parser.parse("search book club /limit 3").count());
+        assertEquals(10, Parser.parse("search book club").count());
+        assertThrows(ShengException.class, () -> Parser.parse("search book /limit 0"));
+        assertThrows(ShengException.class, () -> Parser.getCommand("search /limit 3"));
     }
 
     @Test
-    public void getEventDescription_validInput_returnsDescription() throws ShengException {
-        assertEquals("project meeting", Parser.getEventDescription("event project meeting /from 2024-01-01 1400 /to 2024-01-01 1600"));
+    public void parse_dueWindowInEitherOrder_returnsBothBounds() throws ShengException {
+        ParsedCommand parsed = Parser.parse("due /before 2026-11-01 0000 /after 2026-10-01 1200");
+        assertEquals(Command.DUE, parsed.command());
+        assertEquals(LocalDateTime.of(2026, 11, 1, 0, 0), parsed.to());
+        assertEquals(LocalDateTime.of(2026, 10, 1, 12, 0), parsed.from());
+        assertNull(Parser.parse("due /before 2026-11-01 0000").from());
+        assertThrows(ShengException.class, () -> Parser.getCommand("due"));
+        assertThrows(ShengException.class, () -> Parser.parse("due /before tomorrow"));
     }
 
     @Test
-    public void getEventFrom_validInput_returnsFromDate() throws ShengException {
-        assertEquals("2024-01-01 1400", Parser.getEventFrom("event project meeting /from 2024-01-01 1400 /to 2024-01-01 1600"));
+    public void parse_dueAfterLaterThanBefore_throwsException() {
+        assertThrows(ShengException.class,
+                () -> Parser.parse("due /after 2026-11-01 0000 /before 2026-10-01 0000"));
+        assertThrows(ShengException.class,
+                () -> Parser.parse("due /after 2026-10-01 0000 /before 2026-10-01 0000"));
     }
 
     @Test
-    public void getEventTo_validInput_returnsToDate() throws ShengException {
-        assertEquals("2024-01-01 1600", Parser.getEventTo("event project meeting /from 2024-01-01 1400 /to 2024-01-01 1600"));
+    public void parse_freeSlotWithAndWithoutAfter_returnsHours() throws ShengException {
+        assertEquals(Command.FREE_SLOT, Parser.getCommand("freeslot 2"));
+        ParsedCommand parsed = Parser.parse("freeslot 2 /after 2026-03-10 0900");
+        assertEquals(2, parsed.count());
+        assertEquals(LocalDateTime.of(2026, 3, 10, 9, 0), parsed.from());
+        assertNull(Parser.parse("freeslot 2").from());
+        assertThrows(ShengException.class, () -> Parser.parse("freeslot"));
+        assertThrows(ShengException.class, () -> Parser.getCommand("overlaps /from 2026-03-10 0900"));
     }
 }
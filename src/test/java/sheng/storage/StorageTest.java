@@ -0,0 +1,458 @@
+package sheng.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+import sheng.task.TaskList;
+import sheng.task.Todo;
+
+public class StorageTest {
+
+    @Test
+    public void load_journaledMutations_replaysInOrder(@TempDir Path tempDir) {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        Task first = new Todo("read book");
+        tasks.addTask(first);
+        storage.recordAdd(tasks, first);
+        Task second = new Todo("return book");
+        tasks.addTask(second);
+        storage.recordAdd(tasks, second);
+        tasks.markTask(1);
+        storage.recordMark(tasks, 1);
+        tasks.deleteTask(0);
+        storage.recordDelete(tasks, 0);
+
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals("T | 1 | return book", loaded.get(0).toFileFormat());
+    }
+
+    @Test
+    public void load_journaledBatchMutations_replaysEachAsOneRecord(@TempDir Path tempDir) throws Exception {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 1; i <= 5; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.recordAdd(tasks, task);
+        }
+
+        int[] marked = {0, 1, 2};
+        tasks.markTasks(marked);
+        storage.recordMarks(tasks, marked);
+        int[] deleted = {1, 3};
+        tasks.deleteTasks(deleted);
+        storage.recordDeletes(tasks, deleted);
+
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(3, loaded.size());
+        assertEquals("T | 1 | task 1", loaded.get(0).toFileFormat());
+        assertEquals("T | 1 | task 3", loaded.get(1).toFileFormat());
+        assertEquals("T | 0 | task 5", loaded.get(2).toFileFormat());
+        assertEquals(7, Files.readAllLines(tempDir.resolve("sheng.txt.journal")).size());
+    }
+
+    @Test
+    public void save_journaled_discardsReplayedRecords(@TempDir Path tempDir) {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.recordAdd(tasks, task);
+        storage.save(tasks.getAllTasks());
+
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals(1, new Storage(dataFile).load().size());
+    }
+
+    @Test
+    public void compact_journaledMutations_foldedIntoDataFile(@TempDir Path tempDir) {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.recordAdd(tasks, task);
+        tasks.markTask(0);
+        storage.recordMark(tasks, 0);
+        storage.compact();
+
+        assertFalse(Files.exists(tempDir.resolve("sheng.txt.journal")));
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals("T | 1 | read book", loaded.get(0).toFileFormat());
+    }
+
+    @Test
+    public void load_staleRotatedJournal_notReplayedTwice(@TempDir Path tempDir) throws Exception {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.recordAdd(tasks, task);
+        String journalContent = Files.readString(tempDir.resolve("sheng.txt.journal"));
+        storage.compact();
+        // Simulate a crash after the snapshot was renamed but before the rotated journal was deleted
+        Files.writeString(tempDir.resolve("sheng.txt.journal.old"), journalContent);
+
+        assertEquals(1, new Storage(dataFile, true).load().size());
+    }
+
+    @Test
+    public void close_writeBehind_queuedMutationsPersisted(@TempDir Path tempDir) {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+        storage.enableWriteBehind(1000);
+
+        for (int i = 0; i < 100; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.recordAdd(tasks, task);
+        }
+        storage.close();
+
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(100, loaded.size());
+        assertEquals("task 99", loaded.get(99).getDescription());
+    }
+
+    @Test
+    public void load_binaryFile_roundTripsAllTaskTypes(@TempDir Path tempDir) throws Exception {
+        String dataFile = tempDir.resolve("sheng.bin").toString();
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("return book", "2024-01-01 1800"));
+        tasks.add(new Event("meeting", "2024-01-01 1400", "2024-01-01 1600"));
+        tasks.get(1).markAsDone();
+        new Storage(dataFile).save(tasks);
+
+        ArrayList<Task> loaded = new Storage(dataFile).load();
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileFormat(), loaded.get(i).toFileFormat());
+        }
+    }
+
+    @Test
+    public void convertTextToBinary_journaledTextFile_convertsLatestState(@TempDir Path tempDir) throws Exception {
+        Path textFile = tempDir.resolve("sheng.txt");
+        Storage storage = new Storage(textFile.toString(), true);
+        TaskList tasks = new TaskList(storage.load());
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.recordAdd(tasks, task);
+
+        Path binaryFile = tempDir.resolve("sheng.bin");
+        assertEquals(1, TaskFileConverter.convertTextToBinary(textFile, binaryFile));
+        assertEquals(1, TaskFileConverter.convertBinaryToText(binaryFile, tempDir.resolve("copy.txt")));
+        assertEquals("T | 0 | read book", new Storage(tempDir.resolve("copy.txt").toString()).load()
+                .get(0).toFileFormat());
+    }
+
+    @Test
+    public void load_largeTextFile_parsedInOriginalOrder(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.txt");
+        StringBuilder content = new StringBuilder();
+        int taskCount = 100_000;
+        for (int i = 0; i < taskCount; i++) {
+            content.append("T | 0 | task number ").append(i).append(System.lineSeparator());
+            if (i == taskCount / 2) {
+                content.append("corrupted line").append(System.lineSeparator());
+            }
+        }
+        Files.writeString(dataFile, content);
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+        assertEquals(taskCount, loaded.size());
+        for (int i = 0; i < taskCount; i++) {
+            assertEquals("task number " + i, loaded.get(i).getDescription());
+        }
+    }
+
+    @Test
+    public void loadLazily_journaledTextFile_matchesEagerLoad(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.txt");
+        Files.writeString(dataFile, "T | 0 | read book" + System.lineSeparator()
+                + "corrupted line" + System.lineSeparator()
+                + "D | 1 | return book | 2024-01-01 1800" + System.lineSeparator()
+                + "E | 0 | meeting | 2024-01-01 1400 | 2024-01-01 1600");
+        Storage storage = new Storage(dataFile.toString(), true);
+        TaskList tasks = new TaskList(storage.loadLazily());
+        tasks.unmarkTask(1);
+        storage.recordUnmark(tasks, 1);
+
+        ArrayList<Task> eager = new Storage(dataFile.toString(), true).load();
+        List<Task> lazy = new Storage(dataFile.toString(), true).loadLazily();
+        assertEquals(3, lazy.size());
+        for (int i = 0; i < eager.size(); i++) {
+            assertEquals(eager.get(i).toFileFormat(), lazy.get(i).toFileFormat());
+        }
+        assertEquals("D | 0 | return book | 2024-01-01 1800", lazy.get(1).toFileFormat());
+    }
+
+    @Test
+    public void compact_lazilyLoadedTasks_stillDecodeFromDetachedSource(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.txt");
+        Files.writeString(dataFile, "T | 0 | read book" + System.lineSeparator()
+                + "E | 0 | meeting | 2024-01-01 1400 | 2024-01-01 1600" + System.lineSeparator());
+        Storage storage = new Storage(dataFile.toString(), true);
+        TaskList tasks = new TaskList(storage.loadLazily());
+        tasks.markTask(0);
+        storage.recordMark(tasks, 0);
+
+        storage.compact();
+        // Overwrite the replaced file too, so only the detached copy can still hold the event
+        Files.writeString(dataFile, "T | 0 | something else" + System.lineSeparator());
+
+        assertEquals("E | 0 | meeting | 2024-01-01 1400 | 2024-01-01 1600", tasks.getTask(1).toFileFormat());
+        assertEquals("T | 1 | read book", tasks.getTask(0).toFileFormat());
+    }
+
+    @Test
+    public void checkpoint_lazilyLoadedTasks_keepsUndecodedTasksAndDeletesDetachedCopy(@TempDir Path tempDir)
+            throws Exception {
+        Path dataFile = tempDir.resolve("sheng.txt");
+        Files.writeString(dataFile, "T | 0 | read book" + System.lineSeparator()
+                + "D | 0 | return book | 2024-01-01 1800" + System.lineSeparator()
+                + "E | 0 | meeting | 2024-01-01 1400 | 2024-01-01 1600" + System.lineSeparator());
+        Storage storage = new Storage(dataFile.toString(), true);
+        TaskList tasks = new TaskList(storage.loadLazily());
+        tasks.markTask(0);
+
+        storage.checkpoint(tasks);
+        ArrayList<Task> saved = new Storage(dataFile.toString(), true).load();
+        assertEquals(3, saved.size());
+        assertEquals("T | 1 | read book", saved.get(0).toFileFormat());
+        assertEquals("E | 0 | meeting | 2024-01-01 1400 | 2024-01-01 1600", saved.get(2).toFileFormat());
+
+        // Decoding the last tasks closes the detached copy, which deletes it
+        assertEquals("D | 0 | return book | 2024-01-01 1800", tasks.getTask(1).toFileFormat());
+        tasks.getTask(2);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertFalse(files.anyMatch(file -> file.toString().endsWith(".detached")));
+        }
+    }
+
+    @Test
+    public void load_damagedTaskLine_skippedByChecksum(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.txt");
+        Storage storage = new Storage(dataFile.toString());
+        storage.save(new ArrayList<>(List.of(new Todo("read book"), new Todo("return book"))));
+        Files.writeString(dataFile, Files.readString(dataFile).replace("read book", "read boom"));
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+        assertEquals(1, loaded.size());
+        assertEquals("return book", loaded.get(0).getDescription());
+    }
+
+    @Test
+    public void load_tornLastLine_earlierTasksKept(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.txt");
+        Storage storage = new Storage(dataFile.toString());
+        storage.save(new ArrayList<>(List.of(new Todo("read book"), new Todo("return book"))));
+        byte[] content = Files.readAllBytes(dataFile);
+        Files.write(dataFile, Arrays.copyOf(content, content.length - 4));
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString()).load();
+        assertEquals(1, loaded.size());
+        assertEquals("read book", loaded.get(0).getDescription());
+    }
+
+    @Test
+    public void load_tornBinaryFile_skipsJournalRecordsAlreadyFolded(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.bin");
+        BinaryTaskFile.write(List.of(new Todo("a"), new Todo("b"), new Todo("c")), 3, dataFile);
+        byte[] content = Files.readAllBytes(dataFile);
+        Files.write(dataFile, Arrays.copyOf(content, content.length - 1));
+        String n = System.lineSeparator();
+        Files.writeString(tempDir.resolve("sheng.bin.journal"),
+                "1 | ADD | T | 0 | a" + n + "2 | ADD | T | 0 | b" + n + "3 | ADD | T | 0 | c" + n
+                + "4 | ADD | T | 0 | d" + n);
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString(), true).load();
+        assertEquals(3, loaded.size());
+        assertEquals("a", loaded.get(0).getDescription());
+        assertEquals("b", loaded.get(1).getDescription());
+        assertEquals("d", loaded.get(2).getDescription());
+    }
+
+    @Test
+    public void load_unreadableDataFile_throwsAndNeverOverwritesIt(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.bin");
+        Files.writeString(dataFile, "not binary at all");
+        Storage storage = new Storage(dataFile.toString(), true);
+
+        assertThrows(UncheckedIOException.class, storage::load);
+        TaskList tasks = new TaskList();
+        Task task = new Todo("read book");
+        tasks.addTask(task);
+        storage.recordAdd(tasks, task);
+        storage.save(tasks.getAllTasks());
+        storage.compact();
+
+        assertEquals("not binary at all", Files.readString(dataFile));
+        assertFalse(Files.exists(tempDir.resolve("sheng.bin.journal")));
+    }
+
+    @Test
+    public void convert_tornJournal_leavesSourceFilesUnchanged(@TempDir Path tempDir) throws Exception {
+        Path textFile = tempDir.resolve("sheng.txt");
+        Files.writeString(textFile, "T | 0 | read book" + System.lineSeparator());
+        Path journalFile = tempDir.resolve("sheng.txt.journal");
+        Files.writeString(journalFile, "1 | ADD | T | 0 | return book" + System.lineSeparator() + "2 | ADD | T");
+
+        assertEquals(2, TaskFileConverter.convertTextToBinary(textFile, tempDir.resolve("sheng.bin")));
+        assertEquals("1 | ADD | T | 0 | return book" + System.lineSeparator() + "2 | ADD | T",
+                Files.readString(journalFile));
+    }
+
+    @Test
+    public void load_tornJournalTail_trimmedBeforeNewRecords(@TempDir Path tempDir) throws Exception {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+        for (String description : List.of("read book", "return book")) {
+            Task task = new Todo(description);
+            tasks.addTask(task);
+            storage.recordAdd(tasks, task);
+        }
+        Path journalFile = tempDir.resolve("sheng.txt.journal");
+        byte[] journal = Files.readAllBytes(journalFile);
+        Files.write(journalFile, Arrays.copyOf(journal, journal.length - 4));
+
+        Storage reopened = new Storage(dataFile, true);
+        TaskList reloaded = new TaskList(reopened.load());
+        assertEquals(1, reloaded.getTaskCount());
+        Task task = new Todo("buy milk");
+        reloaded.addTask(task);
+        reopened.recordAdd(reloaded, task);
+
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(2, loaded.size());
+        assertEquals("buy milk", loaded.get(1).getDescription());
+    }
+
+    @Test
+    public void load_slotFile_roundTripsAllTaskTypesWithIds(@TempDir Path tempDir) throws Exception {
+        String dataFile = tempDir.resolve("sheng.slots").toString();
+        TaskList tasks = new TaskList();
+        tasks.addTask(new Todo("read book"));
+        tasks.addTask(new Deadline("return book", "2024-01-01 1800"));
+        tasks.addTask(new Event("meeting", "2024-01-01 1400", "2024-01-01 1600"));
+        tasks.markTask(1);
+        new Storage(dataFile).save(tasks.getAllTasks());
+
+        ArrayList<Task> loaded = new Storage(dataFile).load();
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(tasks.getTask(i).toFileFormat(), loaded.get(i).toFileFormat());
+            assertEquals(i + 1, loaded.get(i).getId());
+        }
+    }
+
+    @Test
+    public void recordMark_slotFile_rewritesOnlyThatSlot(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.slots");
+        Storage storage = new Storage(dataFile.toString(), true);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 100; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.recordAdd(tasks, task);
+        }
+        byte[] before = Files.readAllBytes(dataFile);
+
+        tasks.markTask(50);
+        storage.recordMark(tasks, 50);
+        tasks.deleteTask(10);
+        storage.recordDelete(tasks, 10);
+
+        byte[] after = Files.readAllBytes(dataFile);
+        assertEquals(before.length, after.length);
+        int changedBytes = 0;
+        for (int i = 0; i < before.length; i++) {
+            changedBytes += before[i] != after[i] ? 1 : 0;
+        }
+        assertTrue(changedBytes < 2 * 128);
+        assertFalse(Files.exists(tempDir.resolve("sheng.slots.journal")));
+
+        ArrayList<Task> loaded = new Storage(dataFile.toString(), true).load();
+        assertEquals(99, loaded.size());
+        assertEquals("T | 1 | task 50", loaded.get(49).toFileFormat());
+        // Loading drops the slot the deleted task left empty
+        assertEquals(50, loaded.get(49).getId());
+        assertEquals(after.length - 128, Files.size(dataFile));
+    }
+
+    @Test
+    public void recordAdd_slotFileAfterClear_startsIdsOver(@TempDir Path tempDir) throws Exception {
+        Path dataFile = tempDir.resolve("sheng.slots");
+        Storage storage = new Storage(dataFile.toString(), true);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 10; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.recordAdd(tasks, task);
+        }
+        long fullSize = Files.size(dataFile);
+
+        tasks.clearAllTasks();
+        storage.checkpoint(tasks);
+        Task task = new Todo("fresh start");
+        tasks.addTask(task);
+        storage.recordAdd(tasks, task);
+
+        assertEquals(1, task.getId());
+        assertTrue(Files.size(dataFile) < fullSize);
+    }
+
+    @Test
+    public void checkpoint_deferredSaves_writesOnlyAtCheckpoint(@TempDir Path tempDir) {
+        String dataFile = tempDir.resolve("sheng.txt").toString();
+        Storage storage = new Storage(dataFile, true);
+        TaskList tasks = new TaskList(storage.load());
+        storage.deferSaves();
+
+        for (int i = 0; i < 3; i++) {
+            Task task = new Todo("task " + i);
+            tasks.addTask(task);
+            storage.recordAdd(tasks, task);
+        }
+        tasks.markTask(1);
+        storage.recordMark(tasks, 1);
+        assertEquals(0, new Storage(dataFile, true).load().size());
+
+        storage.checkpoint(tasks);
+        ArrayList<Task> loaded = new Storage(dataFile, true).load();
+        assertEquals(3, loaded.size());
+        assertEquals("T | 1 | task 1", loaded.get(1).toFileFormat());
+        assertTrue(tasks.getDirtyTasks().isEmpty());
+    }
+}
@@ -0,0 +1,89 @@
+package sheng.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sheng.task.Task;
+import sheng.task.Todo;
+
+public class TaskImporterTest {
+
+    /**
+     * Collects what the importer reports.
+     */
+    private static class RecordingListener implements TaskImporter.Listener {
+        private final ArrayList<Long> rejectedLines = new ArrayList<>();
+
+        @Override
+        public void onRejected(long lineNumber, String reason) {
+            rejectedLines.add(lineNumber);
+        }
+
+        @Override
+        public void onProgress(long rowCount) {
+        }
+    }
+
+    @Test
+    public void read_csvWithQuotesAndBadRows_importsValidRowsInOrder(@TempDir Path tempDir) throws Exception {
+        Path csv = tempDir.resolve("tasks.csv");
+        Files.write(csv, List.of(
+                "type,done,description,first,second",
+                "T,0,read book",
+                "D,1,\"return book, quickly\",2026-03-15 1800",
+                "X,0,unknown type",
+                "",
+                "E,0,\"team \"\"sync\"\"\",2026-03-10 1400,2026-03-10 1600",
+                "D,0,no time"));
+        RecordingListener listener = new RecordingListener();
+
+        ArrayList<Task> tasks = TaskImporter.read(csv, listener);
+
+        assertEquals(3, tasks.size());
+        assertEquals("T | 0 | read book", tasks.get(0).toFileFormat());
+        assertEquals("D | 1 | return book, quickly | 2026-03-15 1800", tasks.get(1).toFileFormat());
+        assertEquals("E | 0 | team \"sync\" | 2026-03-10 1400 | 2026-03-10 1600", tasks.get(2).toFileFormat());
+        assertEquals(List.of(4L, 7L), listener.rejectedLines);
+    }
+
+    @Test
+    public void read_rectangularCsv_ignoresEmptyTrailingFields(@TempDir Path tempDir) throws Exception {
+        Path csv = tempDir.resolve("tasks.csv");
+        Files.write(csv, List.of(
+                "type,done,description,by,from,to",
+                "T,0,\"x\",,,",
+                "D,0,return book,2026-03-15 1800,,",
+                "T,0,read book,,2026-03-15 1800,"));
+        RecordingListener listener = new RecordingListener();
+
+        ArrayList<Task> tasks = TaskImporter.read(csv, listener);
+
+        assertEquals(2, tasks.size());
+        assertEquals("T | 0 | x", tasks.get(0).toFileFormat());
+        assertEquals("D | 0 | return book | 2026-03-15 1800", tasks.get(1).toFileFormat());
+        assertEquals(List.of(4L), listener.rejectedLines);
+    }
+
+    @Test
+    public void read_savedTaskFile_importsTasksAndSkipsDamagedLines(@TempDir Path tempDir) throws Exception {
+        Path dump = tempDir.resolve("sheng.txt");
+        TextTaskFile.write(List.of(new Todo("read book"), new Todo("return book")), 7, dump);
+        Files.writeString(dump, Files.readString(dump).replace("return", "burn"));
+        Files.writeString(dump, Files.readString(dump) + "T | 1 | write book" + System.lineSeparator());
+        RecordingListener listener = new RecordingListener();
+
+        ArrayList<Task> tasks = TaskImporter.read(dump, listener);
+
+        assertEquals(2, tasks.size());
+        assertEquals("T | 0 | read book", tasks.get(0).toFileFormat());
+        assertEquals("T | 1 | write book", tasks.get(1).toFileFormat());
+        assertEquals(List.of(3L), listener.rejectedLines);
+    }
+}
@@ -0,0 +1,48 @@
+package sheng.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import sheng.exception.ShengException;
+import sheng.task.Deadline;
+import sheng.task.Event;
+import sheng.task.Task;
+
+public class TaskLineScannerTest {
+
+    @Test
+    public void parse_eventLine_readsAllFields() throws ShengException {
+        Task task = TaskLineScanner.parse("E | 1 | project meeting | 2024-03-01 0900 | 2024-03-01 1100");
+        assertTrue(task instanceof Event);
+        assertTrue(task.isDone());
+        assertEquals("project meeting", task.getDescription());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 9, 0), ((Event) task).getFrom());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 11, 0), ((Event) task).getTo());
+    }
+
+    @Test
+    public void parse_lineInsideLargerText_onlyReadsThatLine() throws ShengException {
+        String text = "T | 0 | first\nD | 0 | return book | 2024-06-15 1800\nT | 1 | last";
+        int start = text.indexOf('\n') + 1;
+        Task task = TaskLineScanner.parse(text, start, text.lastIndexOf('\n'));
+        assertEquals("D | 0 | return book | 2024-06-15 1800", task.toFileFormat());
+    }
+
+    @Test
+    public void parse_endOfMonthDate_resolvedLikeFormatter() throws ShengException {
+        Task task = TaskLineScanner.parse("D | 0 | pay rent | 2023-02-30 2400");
+        assertEquals(LocalDateTime.of(2023, 3, 1, 0, 0), ((Deadline) task).getBy());
+    }
+
+    @Test
+    public void parse_malformedLine_throwsException() {
+        assertThrows(ShengException.class, () -> TaskLineScanner.parse("D | 0 | pay rent | "));
+        assertThrows(ShengException.class, () -> TaskLineScanner.parse("D | 0 | pay rent | 2024-6-15 1800"));
+        assertThrows(ShengException.class, () -> TaskLineScanner.parse("X | 0 | pay rent"));
+    }
+}
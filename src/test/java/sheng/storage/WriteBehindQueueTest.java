@@ -0,0 +1,33 @@
+package sheng.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class WriteBehindQueueTest {
+
+    @Test
+    public void enqueue_afterFailedBatch_rejectsLaterRecords() throws IOException {
+        ArrayList<byte[]> written = new ArrayList<>();
+        boolean[] isFailing = {true};
+        WriteBehindQueue queue = new WriteBehindQueue(batch -> {
+            if (isFailing[0]) {
+                throw new IOException("disk full");
+            }
+            written.addAll(batch);
+        }, 0);
+
+        queue.enqueue(new byte[] {1});
+        assertThrows(IOException.class, queue::flush);
+        isFailing[0] = false;
+
+        assertThrows(IOException.class, () -> queue.enqueue(new byte[] {2}));
+        assertThrows(IOException.class, queue::flush);
+        assertThrows(IOException.class, queue::close);
+        assertEquals(0, written.size());
+    }
+}
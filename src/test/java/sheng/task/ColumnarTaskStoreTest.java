@@ -0,0 +1,104 @@
+package sheng.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class ColumnarTaskStoreTest {
+
+    @Test
+    public void get_allTaskTypes_viewsMatchOriginals() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("return book", LocalDateTime.of(2024, 1, 1, 18, 0)));
+        tasks.add(new Event("caf\u00e9 meeting",
+                LocalDateTime.of(2024, 1, 1, 14, 0), LocalDateTime.of(2024, 1, 1, 16, 0)));
+        tasks.get(1).markAsDone();
+        ColumnarTaskStore store = new ColumnarTaskStore(tasks);
+
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileFormat(), store.get(i).toFileFormat());
+            assertEquals(tasks.get(i), store.get(i));
+        }
+        assertEquals(3, store.get(2).getId());
+    }
+
+    @Test
+    public void constructor_lazyStore_movesTasksWithoutCachingThem() {
+        boolean[] isClosed = {false};
+        TaskStore lazy = new TaskStore(new TaskSource() {
+            @Override
+            public int getTaskCount() {
+                return 3;
+            }
+
+            @Override
+            public Task loadTask(int row) {
+                return new Todo("task " + row);
+            }
+
+            @Override
+            public void close() {
+                isClosed[0] = true;
+            }
+        });
+        lazy.add(1, new Todo("added"));
+
+        ColumnarTaskStore store = new ColumnarTaskStore(lazy, false);
+
+        assertEquals(4, store.size());
+        assertEquals("task 0", store.get(0).getDescription());
+        assertEquals("added", store.get(1).getDescription());
+        assertEquals(4, store.get(1).getId());
+        assertEquals(3, store.get(3).getId());
+        assertEquals(0, lazy.getLoadedCount());
+        assertTrue(lazy.isEmpty());
+        assertTrue(isClosed[0]);
+    }
+
+    @Test
+    public void setDone_markAndDelete_countsFromDoneColumn() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        ColumnarTaskStore store = new ColumnarTaskStore(tasks);
+        for (int i = 0; i < 200; i += 2) {
+            store.setDone(i, true);
+        }
+        for (int i = 0; i < 100; i++) {
+            store.remove(0);
+        }
+
+        assertEquals(50, store.stream().filter(Task::isDone).count());
+        assertTrue(store.get(0).isDone());
+        assertFalse(store.get(1).isDone());
+        assertEquals("task 100", store.get(0).getDescription());
+        store.setDone(0, false);
+        assertEquals(49, store.stream().filter(Task::isDone).count());
+    }
+
+    @Test
+    public void remove_offHeapDescriptions_survivesCompaction() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new Todo("long enough description for task " + i));
+        }
+        ColumnarTaskStore store = new ColumnarTaskStore(tasks, true);
+        for (int i = 0; i < 900; i++) {
+            store.remove(0);
+        }
+        store.add(new Todo("new task"));
+
+        assertTrue(store.isOffHeap());
+        assertEquals(101, store.size());
+        assertEquals("long enough description for task 900", store.get(0).getDescription());
+        assertEquals("long enough description for task 999", store.get(99).getDescription());
+        assertEquals("new task", store.get(100).getDescription());
+    }
+}
@@ -0,0 +1,36 @@
+package sheng.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.junit.jupiter.api.Test;
+
+public class DateTimeCodecTest {
+
+    @Test
+    public void formatStorage_validDateTime_matchesFormatter() {
+        LocalDateTime dateTime = LocalDateTime.of(2024, 2, 9, 7, 5);
+        assertEquals("2024-02-09 0705", DateTimeCodec.formatStorage(dateTime));
+    }
+
+    @Test
+    public void formatDisplay_noonAndMidnight_matchesFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd yyyy, hh:mm a");
+        LocalDateTime noon = LocalDateTime.of(2024, 12, 31, 12, 0);
+        LocalDateTime midnight = LocalDateTime.of(2024, 1, 1, 0, 30);
+        assertEquals(noon.format(formatter), DateTimeCodec.formatDisplay(noon));
+        assertEquals(midnight.format(formatter), DateTimeCodec.formatDisplay(midnight));
+    }
+
+    @Test
+    public void parse_unusualDates_resolvedLikeFormatter() {
+        assertEquals(LocalDateTime.of(2024, 2, 29, 18, 0), DateTimeCodec.parse("2024-02-31 1800"));
+        assertEquals(LocalDateTime.of(2024, 6, 16, 0, 0), DateTimeCodec.parse("2024-06-15 2400"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parse("2024-13-01 1800"));
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parse("2024-06-15 18:00"));
+    }
+}
@@ -1,8 +1,11 @@
 package sheng.task;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -76,6 +79,20 @@ public class TaskListTest {
         assertEquals(deadline, taskList.getTask(0));
     }
 
+    @Test
+    public void deleteTasks_scatteredIndices_removesThoseTasksKeepingOrder() {
+        for (int i = 1; i <= 6; i++) {
+            taskList.addTask(new Todo("task " + i));
+        }
+        ArrayList<Task> deleted = taskList.deleteTasks(new int[] {0, 2, 3, 5});
+        assertEquals(2, taskList.getTaskCount());
+        assertEquals("task 2", taskList.getTask(0).getDescription());
+        assertEquals("task 5", taskList.getTask(1).getDescription());
+        assertEquals(4, deleted.size());
+        assertEquals("task 1", deleted.get(0).getDescription());
+        assertEquals("task 6", deleted.get(3).getDescription());
+    }
+
     @Test
     public void constructor_withExistingTasks_correctTaskCount() {
         ArrayList<Task> tasks = new ArrayList<>();
@@ -99,4 +116,262 @@ public class TaskListTest {
     public void getTaskCount_emptyList_returnsZero() {
         assertEquals(0, taskList.getTaskCount());
     }
+
+    @Test
+    public void getTask_lazyList_decodesOnlyAccessedTasks() {
+        TaskSource source = new TaskSource() {
+            @Override
+            public int getTaskCount() {
+                return 1000;
+            }
+
+            @Override
+            public Task loadTask(int row) {
+                return new Todo("task " + row);
+            }
+        };
+        LazyTaskList lazyTasks = new LazyTaskList(source);
+        TaskList lazyTaskList = new TaskList(lazyTasks);
+
+        assertEquals(1000, lazyTaskList.getTaskCount());
+        lazyTaskList.deleteTask(0);
+        assertEquals("task 6", lazyTaskList.getTask(5).getDescription());
+        assertEquals(2, lazyTasks.getLoadedCount());
+    }
+
+    @Test
+    public void findOverlappingEvents_lazyList_decodesOnlyEvents() {
+        LocalDateTime nine = LocalDateTime.of(2024, 1, 1, 9, 0);
+        TaskSource source = new TaskSource() {
+            @Override
+            public int getTaskCount() {
+                return 1000;
+            }
+
+            @Override
+            public Task loadTask(int row) {
+                return isEvent(row) ? new Event("event " + row, nine.plusDays(row), nine.plusDays(row).plusHours(1))
+                        : new Todo("task " + row);
+            }
+
+            @Override
+            public boolean isEvent(int row) {
+                return row % 100 == 0;
+            }
+        };
+        LazyTaskList lazyTasks = new LazyTaskList(source);
+        TaskList lazyTaskList = new TaskList(lazyTasks);
+
+        ArrayList<Task> conflicts = lazyTaskList.findOverlappingEvents(nine.plusDays(200), nine.plusDays(301));
+        assertEquals(2, conflicts.size());
+        assertEquals("event 200", conflicts.get(0).getDescription());
+        assertEquals(10, lazyTasks.getLoadedCount());
+    }
+
+    @Test
+    public void addTask_newTasks_getIncreasingIds() {
+        taskList.addTask(todo);
+        taskList.addTask(deadline);
+        taskList.deleteTask(0);
+        Task next = new Todo("buy milk");
+        taskList.addTask(next);
+        assertEquals(2, deadline.getId());
+        assertEquals(3, next.getId());
+    }
+
+    @Test
+    public void markTask_savedList_onlyMarkedTaskDirty() {
+        taskList.addTask(todo);
+        taskList.addTask(deadline);
+        taskList.markSaved();
+
+        taskList.markTask(1);
+        assertEquals(1, taskList.getDirtyTasks().size());
+        assertTrue(deadline.isDirty());
+        assertFalse(todo.isDirty());
+        taskList.markSaved();
+        assertTrue(taskList.getDirtyTasks().isEmpty());
+        assertFalse(deadline.isDirty());
+    }
+
+    @Test
+    public void markTask_columnarStore_searchesSeeChange() {
+        TaskList columnarList = new TaskList(new ColumnarTaskStore(new ArrayList<>()));
+        columnarList.addTask(todo);
+        columnarList.addTask(deadline);
+        columnarList.findTasks("book");
+        columnarList.markSaved();
+
+        columnarList.markTask(0);
+        assertTrue(columnarList.getTask(0).isDone());
+        assertTrue(columnarList.findTasks("book").get(0).isDone());
+        assertEquals(1, columnarList.getDirtyTasks().size());
+    }
+
+    @Test
+    public void findTasks_wordsAndSubstrings_matchesInListOrder() {
+        taskList.addTask(new Todo("borrow book"));
+        taskList.addTask(todo);
+        taskList.addTask(new Todo("bookshelf assembly"));
+        taskList.addTask(deadline);
+
+        ArrayList<Task> found = taskList.findTasks("book");
+        assertEquals(4, found.size());
+        assertEquals(todo, found.get(1));
+        assertEquals(deadline, found.get(3));
+        assertEquals(1, taskList.findTasks("ead b").size());
+        assertEquals(1, taskList.findTasks("n b").size());
+    }
+
+    @Test
+    public void findTasks_afterDeleteAndClear_indexKeptUpToDate() {
+        taskList.addTask(todo);
+        assertEquals(1, taskList.findTasks("read").size());
+        taskList.deleteTask(0);
+        assertTrue(taskList.findTasks("read").isEmpty());
+        taskList.addTask(deadline);
+        assertEquals(1, taskList.findTasks("return").size());
+        taskList.clearAllTasks();
+        assertTrue(taskList.findTasks("return").isEmpty());
+    }
+
+    @Test
+    public void findTasks_manyDeletesAfterSearch_indexKeptUpToDate() {
+        for (int i = 0; i < 5000; i++) {
+            taskList.addTask(new Todo("task number " + i));
+        }
+        assertEquals(5000, taskList.findTasks("task").size());
+
+        int[] everyOtherTask = new int[2500];
+        for (int i = 0; i < everyOtherTask.length; i++) {
+            everyOtherTask[i] = 2 * i;
+        }
+        taskList.deleteTasks(everyOtherTask);
+        for (int i = 0; i < 2000; i++) {
+            taskList.deleteTask(0);
+        }
+        taskList.addTask(new Todo("task number 5000"));
+
+        ArrayList<Task> found = taskList.findTasks("task");
+        assertEquals(501, found.size());
+        assertEquals("task number 4001", found.get(0).getDescription());
+        assertEquals("task number 5000", found.get(500).getDescription());
+        assertEquals(1, taskList.findTasks("number 4999").size());
+        assertTrue(taskList.findTasks("number 3999").isEmpty());
+    }
+
+    @Test
+    public void findTasks_substringAcrossWords_falsePositivesDropped() {
+        taskList.addTask(new Todo("abc xyz"));
+        taskList.addTask(new Todo("xyz abc"));
+        taskList.addTask(todo);
+        taskList.deleteTask(2);
+
+        ArrayList<Task> found = taskList.findTasks("abc x");
+        assertEquals(1, found.size());
+        assertEquals("abc xyz", found.get(0).getDescription());
+        assertTrue(taskList.findTasks("read").isEmpty());
+    }
+
+    @Test
+    public void findTasksFuzzy_typoAndCase_rankedByDistance() {
+        taskList.addTask(new Todo("Read books"));
+        taskList.addTask(todo);
+        taskList.addTask(new Todo("return laptop"));
+
+        ArrayList<Task> found = taskList.findTasksFuzzy("REED book");
+        assertEquals(2, found.size());
+        assertEquals(todo, found.get(0));
+        assertEquals("Read books", found.get(1).getDescription());
+        taskList.deleteTask(1);
+        assertEquals(1, taskList.findTasksFuzzy("reed book").size());
+        assertTrue(taskList.findTasksFuzzy("laptops cable").isEmpty());
+    }
+
+    @Test
+    public void searchTasks_rareAndRepeatedWords_rankedFirstWithinLimit() {
+        taskList.addTask(new Todo("buy milk"));
+        taskList.addTask(new Todo("buy bread and milk"));
+        taskList.addTask(new Todo("Book book club"));
+        taskList.addTask(todo);
+        taskList.addTask(new Todo("buy eggs"));
+
+        ArrayList<Task> found = taskList.searchTasks("book", 5);
+        assertEquals(2, found.size());
+        assertEquals("Book book club", found.get(0).getDescription());
+        assertEquals(todo, found.get(1));
+
+        ArrayList<Task> limited = taskList.searchTasks("buy milk", 2);
+        assertEquals(2, limited.size());
+        assertEquals("buy milk", limited.get(0).getDescription());
+        assertEquals("buy bread and milk", limited.get(1).getDescription());
+    }
+
+    @Test
+    public void findDeadlinesDue_window_earliestFirstAndUpdated() throws Exception {
+        Task late = new Deadline("pay rent", "2024-03-01 0900");
+        Task early = new Deadline("file taxes", "2024-02-01 0900");
+        taskList.addTask(late);
+        taskList.addTask(todo);
+        taskList.addTask(early);
+        taskList.addTask(deadline);
+
+        ArrayList<Task> due = taskList.findDeadlinesDue(LocalDateTime.of(2024, 1, 1, 18, 0), null);
+        assertEquals(2, due.size());
+        assertEquals(early, due.get(0));
+        assertEquals(late, due.get(1));
+        assertEquals(1, taskList.findDeadlinesDue(null, LocalDateTime.of(2024, 2, 1, 9, 0)).size());
+
+        taskList.deleteTask(2);
+        assertEquals(1, taskList.findDeadlinesDue(LocalDateTime.of(2024, 1, 1, 18, 0), null).size());
+    }
+
+    @Test
+    public void findDeadlinesDue_afterLaterThanBefore_returnsNothing() throws Exception {
+        taskList.addTask(new Deadline("pay rent", "2024-03-01 0900"));
+
+        assertEquals(0, taskList.findDeadlinesDue(
+                LocalDateTime.of(2024, 4, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0)).size());
+    }
+
+    @Test
+    public void findOverlappingEvents_touchingAndDeletedEvents_excluded() throws Exception {
+        Task morning = new Event("standup", "2024-01-01 0900", "2024-01-01 1000");
+        Task lunch = new Event("lunch", "2024-01-01 1200", "2024-01-01 1300");
+        Task workshop = new Event("workshop", "2024-01-01 0930", "2024-01-01 1230");
+        taskList.addTask(morning);
+        taskList.addTask(lunch);
+        taskList.addTask(workshop);
+
+        ArrayList<Task> overlapping = taskList.findOverlappingEvents(
+                LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 12, 0));
+        assertEquals(1, overlapping.size());
+        assertEquals(workshop, overlapping.get(0));
+        taskList.deleteTask(2);
+        assertTrue(taskList.findOverlappingEvents(
+                LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 12, 0)).isEmpty());
+    }
+
+    @Test
+    public void findFreeSlot_busyMorning_returnsFirstLongEnoughGap() throws Exception {
+        taskList.addTask(new Event("standup", "2024-01-01 0900", "2024-01-01 1000"));
+        taskList.addTask(new Event("review", "2024-01-01 1100", "2024-01-01 1200"));
+        taskList.addTask(new Event("lunch", "2024-01-01 1300", "2024-01-01 1400"));
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), taskList.findFreeSlot(start, Duration.ofHours(1)));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 14, 0), taskList.findFreeSlot(start, Duration.ofHours(2)));
+    }
+
+    @Test
+    public void indexOfId_afterDelete_returnsCurrentPosition() {
+        taskList.addTask(todo);
+        taskList.addTask(deadline);
+        Task third = new Todo("buy milk");
+        taskList.addTask(third);
+
+        taskList.deleteTask(0);
+        assertEquals(1, taskList.indexOfId(third.getId()));
+        assertEquals(-1, taskList.indexOfId(todo.getId()));
+    }
 }
@@ -0,0 +1,116 @@
+package sheng.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskStoreTest {
+
+    /**
+     * A source of numbered todos that remembers whether it was closed.
+     */
+    private static class CountingSource implements TaskSource {
+        private final int taskCount;
+        private boolean isClosed;
+
+        CountingSource(int taskCount) {
+            this.taskCount = taskCount;
+        }
+
+        @Override
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        @Override
+        public Task loadTask(int row) {
+            assertFalse(isClosed);
+            return new Todo("task " + row);
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+    }
+
+    @Test
+    public void get_everyTaskDecoded_closesSource() {
+        CountingSource source = new CountingSource(3);
+        TaskStore store = new TaskStore(source);
+        store.get(0);
+        store.remove(1);
+        assertFalse(source.isClosed);
+
+        assertEquals("task 2", store.get(1).getDescription());
+        assertTrue(source.isClosed);
+    }
+
+    @Test
+    public void clear_undecodedTasks_closesSource() {
+        CountingSource source = new CountingSource(3);
+        TaskStore store = new TaskStore(source);
+        store.clear();
+        assertTrue(source.isClosed);
+    }
+
+    @Test
+    public void remove_manyFromFront_positionsAndIdsStayConsistent() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        TaskStore store = new TaskStore(tasks);
+        for (int i = 0; i < 700; i++) {
+            store.remove(0);
+        }
+        store.add(new Todo("new task"));
+
+        assertEquals(301, store.size());
+        assertEquals("task 700", store.get(0).getDescription());
+        assertEquals("new task", store.get(300).getDescription());
+        assertEquals(1001, store.get(300).getId());
+        assertEquals(299, store.indexOfId(1000));
+        assertEquals(-1, store.indexOfId(1));
+    }
+
+    @Test
+    public void iterator_afterRemovesAndInsert_visitsTasksInOrder() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        TaskStore store = new TaskStore(tasks);
+        store.remove(1);
+        store.remove(2);
+        store.add(1, new Todo("inserted"));
+
+        StringBuilder order = new StringBuilder();
+        for (Task task : store) {
+            order.append(task.getDescription()).append(',');
+        }
+        assertEquals("task 0,inserted,task 2,task 4,", order.toString());
+        assertEquals(1, store.indexOf(store.get(1)));
+    }
+
+    @Test
+    public void add_manyAtFront_keepsOrderAndIdsInIdOrder() {
+        TaskStore store = new TaskStore(new ArrayList<>());
+        for (int i = 0; i < 500; i++) {
+            store.add(0, new Todo("task " + i));
+        }
+        store.remove(250);
+
+        assertEquals(499, store.size());
+        assertEquals("task 499", store.get(0).getDescription());
+        assertEquals("task 248", store.get(250).getDescription());
+        assertEquals("task 0", store.get(498).getDescription());
+        assertEquals(0, store.indexOfId(500));
+        assertEquals(498, store.indexOfId(1));
+        assertEquals(-1, store.indexOfId(250));
+    }
+}